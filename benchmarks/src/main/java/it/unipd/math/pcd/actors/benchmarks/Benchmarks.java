@@ -0,0 +1,116 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.ActorRef;
+import it.unipd.math.pcd.actors.ActorSystem;
+import it.unipd.math.pcd.actors.Dispatcher;
+import it.unipd.math.pcd.actors.ForkJoinDispatcher;
+import it.unipd.math.pcd.actors.IdleStrategy;
+import it.unipd.math.pcd.actors.MyActorSystem;
+import it.unipd.math.pcd.actors.ThreadPoolDispatcher;
+import it.unipd.math.pcd.actors.VirtualThreadDispatcher;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilities shared by the benchmarks.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+final class Benchmarks {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Creates the dispatcher selected by a benchmark parameter.
+     *
+     * @param name The name of the dispatcher: {@code pool}, {@code pool-spin}, {@code forkjoin} or
+     *             {@code virtual}
+     * @return A new dispatcher
+     */
+    static Dispatcher dispatcher(String name) {
+        switch (name) {
+            case "pool":
+                return new ThreadPoolDispatcher();
+            case "pool-spin":
+                return new ThreadPoolDispatcher(Runtime.getRuntime().availableProcessors(),
+                        IdleStrategy.spinThenPark(10000, 100, TimeUnit.MICROSECONDS));
+            case "forkjoin":
+                return new ForkJoinDispatcher();
+            case "virtual":
+                return new VirtualThreadDispatcher();
+            default:
+                throw new IllegalArgumentException("Unknown dispatcher " + name);
+        }
+    }
+
+    /**
+     * Creates an actor system executed by the dispatcher selected by a benchmark parameter.
+     *
+     * @param dispatcher The name of the dispatcher
+     * @return A new actor system
+     */
+    static MyActorSystem system(String dispatcher) {
+        return new MyActorSystem(dispatcher(dispatcher));
+    }
+
+    /**
+     * Stops all the actors of a system and releases its threads.
+     *
+     * @param system The actor system
+     */
+    static void shutdown(MyActorSystem system) throws Exception {
+        system.shutdown().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        // The dispatcher is given to the system, which does not shut it down
+        system.getDispatcher().shutdown();
+    }
+
+    /**
+     * Waits until a {@link it.unipd.math.pcd.actors.utils.actors.counter.CounterActor} has
+     * reached the expected value, asking for it.
+     *
+     * @param system The actor system
+     * @param counter The reference to the counter
+     * @param expected The expected value
+     */
+    static void awaitCounter(ActorSystem system, ActorRef<?> counter, int expected) throws Exception {
+        while (system.<Result>ask(counter, new Get(), TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .get().getResult() < expected)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.ActorRef;
+import it.unipd.math.pcd.actors.MyActorSystem;
+import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-to-many throughput: a single {@link TrivialActor sender} sends {@code messageCount}
+ * increments to each of {@code actorCount} {@link CounterActor counters}, either one send per
+ * counter or one broadcast to a group of all of them.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FanOutBenchmark {
+
+    @Param({"10", "1000"})
+    public int actorCount;
+
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    @Param({"pool", "forkjoin", "virtual"})
+    public String dispatcher;
+
+    private MyActorSystem system;
+    private ActorRef<Increment> sender;
+    private ActorRef<?>[] counters;
+    private ActorRef<?> group;
+    private int expected;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        system = Benchmarks.system(dispatcher);
+        sender = (ActorRef<Increment>) system.actorOf(TrivialActor.class);
+        counters = new ActorRef<?>[actorCount];
+        for (int i = 0; i < actorCount; i++)
+            counters[i] = system.actorOf(CounterActor.class);
+        group = system.groupOf(Arrays.asList(counters));
+        expected = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Benchmarks.shutdown(system);
+    }
+
+    @Benchmark
+    public void fanOut() throws Exception {
+        for (int m = 0; m < messageCount; m++) {
+            for (ActorRef<?> counter : counters)
+                sender.send(new Increment(), counter);
+        }
+
+        expected += messageCount;
+        for (ActorRef<?> counter : counters)
+            Benchmarks.awaitCounter(system, counter, expected);
+    }
+
+    @Benchmark
+    public void broadcast() throws Exception {
+        for (int m = 0; m < messageCount; m++)
+            sender.send(new Increment(), group);
+
+        expected += messageCount;
+        for (ActorRef<?> counter : counters)
+            Benchmarks.awaitCounter(system, counter, expected);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.MailBox;
+import it.unipd.math.pcd.actors.MailBoxFactory;
+import it.unipd.math.pcd.actors.OverflowPolicy;
+import it.unipd.math.pcd.actors.utils.messages.TrivialMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of adding a message to a mailbox and removing it, for every kind of mailbox, one message
+ * at a time or in batches. Run it with
+ * {@code -prof gc} to compare the allocation rate of the mailboxes.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MailBoxBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"mpsc", "bounded", "priority", "ring"})
+    public String mailBoxType;
+
+    private MailBox<TrivialMessage> mailBox;
+    private final TrivialMessage message = new TrivialMessage();
+    private final List<TrivialMessage> batch = Collections.nCopies(BATCH, message);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MailBoxFactory factory;
+        switch (mailBoxType) {
+            case "mpsc":
+                factory = MailBoxFactory.unbounded();
+                break;
+            case "bounded":
+                factory = MailBoxFactory.bounded(1024, OverflowPolicy.BLOCK);
+                break;
+            case "priority":
+                factory = MailBoxFactory.priority(4);
+                break;
+            case "ring":
+                factory = MailBoxFactory.ring(1024);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mailbox " + mailBoxType);
+        }
+        mailBox = factory.create();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addAndRemove(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++)
+            mailBox.add(message, null);
+        for (int i = 0; i < BATCH; i++)
+            blackhole.consume(mailBox.remove());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void addAllAndRemove(Blackhole blackhole) {
+        mailBox.addAll(batch, null);
+        for (int i = 0; i < BATCH; i++)
+            blackhole.consume(mailBox.remove());
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.ActorRef;
+import it.unipd.math.pcd.actors.MyActorSystem;
+import it.unipd.math.pcd.actors.utils.actors.ping.pong.PingPongActor;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip latency of a {@link PingMessage} answered by a {@link PingPongActor} with a pong.
+ * An invocation performs {@code messageCount} rounds, and in every round each of the
+ * {@code actorCount} actors is pinged concurrently.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PingPongBenchmark {
+
+    @Param({"1", "64"})
+    public int actorCount;
+
+    @Param({"1", "100"})
+    public int messageCount;
+
+    @Param({"pool", "pool-spin", "forkjoin", "virtual"})
+    public String dispatcher;
+
+    private MyActorSystem system;
+    private ActorRef<?>[] actors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        system = Benchmarks.system(dispatcher);
+        actors = new ActorRef<?>[actorCount];
+        for (int i = 0; i < actorCount; i++)
+            actors[i] = system.actorOf(PingPongActor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Benchmarks.shutdown(system);
+    }
+
+    @Benchmark
+    public void roundTrip() throws Exception {
+        CompletableFuture<?>[] pongs = new CompletableFuture<?>[actorCount];
+        for (int m = 0; m < messageCount; m++) {
+            for (int i = 0; i < actorCount; i++)
+                pongs[i] = system.ask(actors[i], new PingMessage(), 30, TimeUnit.SECONDS);
+            CompletableFuture.allOf(pongs).get();
+        }
+    }
+}
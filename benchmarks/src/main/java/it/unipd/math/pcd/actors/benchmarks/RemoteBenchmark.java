@@ -0,0 +1,162 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.ActorRef;
+import it.unipd.math.pcd.actors.MyActorSystem;
+import it.unipd.math.pcd.actors.RemoteConfig;
+import it.unipd.math.pcd.actors.serialization.MessageCodec;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a chatty link between two actor systems on the loopback interface: a sender
+ * increments a {@link CounterActor} of the other system {@code messageCount} times, with the
+ * messages coalesced into batches or written one at a time.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RemoteBenchmark {
+
+    @Param({"batched", "unbatched"})
+    public String link;
+
+    @Param({"10000"})
+    public int messageCount;
+
+    private MyActorSystem client;
+    private MyActorSystem server;
+    private ActorRef<Increment> sender;
+    private ActorRef<?> counter;
+    private int expected;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RemoteConfig config;
+        switch (link) {
+            case "batched":
+                config = RemoteConfig.defaults();
+                break;
+            case "unbatched":
+                config = RemoteConfig.defaults().withoutBatching();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown link " + link);
+        }
+        client = Benchmarks.system("pool");
+        server = Benchmarks.system("pool");
+        registerCodecs(client.serializers());
+        registerCodecs(server.serializers());
+        client.listen("127.0.0.1", 0, config);
+        server.listen("127.0.0.1", 0, config);
+
+        sender = (ActorRef<Increment>) client.actorOf(TrivialActor.class);
+        counter = client.actorFor(server.addressOf(server.actorOf(CounterActor.class)));
+        expected = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Benchmarks.shutdown(client);
+        Benchmarks.shutdown(server);
+    }
+
+    @Benchmark
+    public void chatty() throws Exception {
+        for (int i = 0; i < messageCount; i++)
+            sender.send(new Increment(), counter);
+        expected += messageCount;
+        Benchmarks.awaitCounter(client, counter, expected);
+    }
+
+    // Java serialization would hide the cost of the system calls
+    private static void registerCodecs(SerializerRegistry registry) {
+        registry.register(Increment.class, 1, new MessageCodec<Increment>() {
+            @Override
+            public void encode(Increment message, ByteBuffer buffer) {
+            }
+
+            @Override
+            public Increment decode(ByteBuffer buffer) {
+                return new Increment();
+            }
+        });
+        registry.register(Get.class, 2, new MessageCodec<Get>() {
+            @Override
+            public void encode(Get message, ByteBuffer buffer) {
+            }
+
+            @Override
+            public Get decode(ByteBuffer buffer) {
+                return new Get();
+            }
+        });
+        registry.register(Result.class, 3, new MessageCodec<Result>() {
+            @Override
+            public void encode(Result message, ByteBuffer buffer) {
+                buffer.putInt(message.getResult());
+            }
+
+            @Override
+            public Result decode(ByteBuffer buffer) {
+                return new Result(buffer.getInt());
+            }
+        });
+    }
+}
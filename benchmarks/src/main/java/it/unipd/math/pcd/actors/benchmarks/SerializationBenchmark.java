@@ -0,0 +1,115 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.benchmarks;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.serialization.BufferPool;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.messages.MessageCodecs;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the test messages into a pooled direct buffer and reading them back, with
+ * their binary codecs or with the fallback to Java serialization. Run it with {@code -prof gc}
+ * to compare the allocation rate of the two.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"binary", "java"})
+    public String codec;
+
+    @Param({"store", "ping"})
+    public String messageType;
+
+    private final BufferPool pool = new BufferPool(4096, 16);
+    private SerializerRegistry registry;
+    private Message message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new SerializerRegistry();
+        // Without codecs every message falls back to Java serialization
+        if (codec.equals("binary"))
+            MessageCodecs.registerAll(registry);
+        else if (codec.equals("java")) {
+            registry.allowJavaSerialization(StoreMessage.class);
+            registry.allowJavaSerialization(PingMessage.class);
+        } else
+            throw new IllegalArgumentException("Unknown codec " + codec);
+        message = messageType.equals("store") ? new StoreMessage("Hello, world!") : new PingMessage();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int serialize() {
+        ByteBuffer buffer = pool.acquire();
+        registry.serialize(message, buffer);
+        int written = buffer.position();
+        pool.release(buffer);
+        return written;
+    }
+
+    @Benchmark
+    public Message roundTrip() {
+        ByteBuffer buffer = pool.acquire();
+        registry.serialize(message, buffer);
+        buffer.flip();
+        Message read = registry.deserialize(buffer);
+        pool.release(buffer);
+        return read;
+    }
+}
@@ -30,6 +30,13 @@
 package it.unipd.math.pcd.actors;
 
 import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.metrics.ActorMetrics;
+import it.unipd.math.pcd.actors.metrics.MetricsSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Defines common properties of all actors.
@@ -50,10 +57,39 @@ public abstract class AbsActor<T extends Message> implements Actor<T> {
      */
     protected ActorRef<T> sender;
 
-    // MailBox methods are not synchronized. Access must be synchronized
-    private final MailBox<T> mailBox = new MailBox<T>();
+    // Senders add messages concurrently, the dispatched MessagesManager is the only consumer
+    // Replaced by the actor system, according to the configuration of the actor, before it is published
+    private MailBox<T> mailBox = new MpscMailBox<T>();
+
+    private final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+    /**
+     * True while the actor has been handed to the dispatcher and has not yet drained its mailbox
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    /**
+     * True while a signal has been received and has not yet been handled
+     */
+    private final AtomicBoolean signalled = new AtomicBoolean(false);
+
+    private final MessagesManager messagesManager = new MessagesManager();
+
+    private Dispatcher dispatcher;
 
-    private volatile boolean interrupted = false;
+    private AbsActorSystem system;
+
+    /**
+     * Completed once the actor has been stopped and has flushed its inbox
+     */
+    private final CompletableFuture<Void> termination = new CompletableFuture<>();
+
+    private final ActorMetrics metrics = new ActorMetrics();
+    // Whether the senders timestamp the messages and sample the depth of the mailbox
+    private boolean detailedMetrics;
+
+    // Identifier in the registry of the actor system
+    private long id = ActorRegistry.NO_ID;
 
     /**
      * Sets the self-referece.
@@ -66,48 +102,330 @@ public abstract class AbsActor<T extends Message> implements Actor<T> {
         return this;
     }
 
+    /**
+     * Sets the dispatcher that executes the actor.
+     *
+     * @param dispatcher The dispatcher of the actor system
+     * @return The actor.
+     */
+    final Actor<T> setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        return this;
+    }
+
+    /**
+     * Sets the actor system the actor belongs to.
+     *
+     * @param system The actor system
+     * @return The actor.
+     */
+    final Actor<T> setSystem(AbsActorSystem system) {
+        this.system = system;
+        return this;
+    }
+
+    /**
+     * Retrieves the future completed when the actor terminates.
+     *
+     * @return The termination of the actor
+     */
+    final CompletableFuture<Void> getTermination() {
+        return termination;
+    }
+
+    /**
+     * Sets the identifier of the actor in the registry of its system.
+     *
+     * @param id The identifier of the actor
+     * @return The actor.
+     */
+    final Actor<T> setId(long id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Retrieves the identifier of the actor in the registry of its system.
+     *
+     * @return The identifier of the actor
+     */
+    final long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the mailbox of the actor.
+     *
+     * @param mailBox The mailbox of the actor
+     * @return The actor.
+     */
+    final Actor<T> setMailBox(MailBox<T> mailBox) {
+        this.mailBox = mailBox;
+        return this;
+    }
+
+    /**
+     * Enables the detailed metrics of the actor. Must be called after the mailbox has been set.
+     *
+     * @param detailedMetrics true to record the time spent in the mailbox and to sample its depth
+     *                        on every enqueue; false otherwise
+     * @return The actor.
+     */
+    final Actor<T> setDetailedMetrics(boolean detailedMetrics) {
+        this.detailedMetrics = detailedMetrics;
+        mailBox.setTimestamped(detailedMetrics);
+        return this;
+    }
+
+    /**
+     * Retrieves the number of messages dropped because the mailbox of the actor was full.
+     *
+     * @return The number of dropped messages
+     */
+    public long getDroppedMessages() {
+        return mailBox.getDroppedCount();
+    }
+
+    /**
+     * Retrieves the number of messages in the mailbox of the actor.
+     *
+     * @return The depth of the mailbox
+     */
+    final long getMailBoxDepth() {
+        return metrics.getDepth(mailBox.getDroppedCount());
+    }
+
+    /**
+     * Takes a snapshot of the runtime metrics of the actor.
+     *
+     * @return The snapshot
+     */
+    final MetricsSnapshot getMetrics() {
+        return metrics.snapshot(mailBox.getDroppedCount());
+    }
+
     /**
      * Stores a new message into the mailbox.
      *
      * @param message Message received
      * @param sender Sender of the message
+     * @throws NoSuchActorException If the actor has been stopped
+     * @throws it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException If the mailbox is full and
+     *         its overflow policy is {@link OverflowPolicy#FAIL}
      */
     public final void storeMessage(T message, ActorRef<T> sender) throws NoSuchActorException {
-        if (!interrupted) {
-            synchronized (mailBox) {
-                mailBox.add(message, sender);
-                mailBox.notifyAll();
+        if (!interrupted.get()) {
+            // Counted before the add, so that a message rejected by the mailbox is counted as dropped
+            metrics.recordEnqueue();
+            mailBox.add(message, sender);
+            sampleDepth();
+            notifyEnqueue(message, sender);
+            schedule();
+        } else throw new NoSuchActorException("Actor can not receive new message!");
+    }
+
+    /**
+     * Stores a new message into the mailbox with an explicit priority.
+     *
+     * @param message Message received
+     * @param sender Sender of the message
+     * @param priority Priority of the message, where 0 is the highest
+     * @throws NoSuchActorException If the actor has been stopped
+     * @see PriorityMailBox
+     */
+    public final void storeMessage(T message, ActorRef<T> sender, int priority) throws NoSuchActorException {
+        if (!interrupted.get()) {
+            metrics.recordEnqueue();
+            mailBox.add(message, sender, priority);
+            sampleDepth();
+            notifyEnqueue(message, sender);
+            schedule();
+        } else throw new NoSuchActorException("Actor can not receive new message!");
+    }
+
+    /**
+     * Stores a batch of messages from the same sender into the mailbox at once, scheduling the
+     * actor only once.
+     *
+     * @param messages Messages received
+     * @param sender Sender of the messages
+     * @throws NoSuchActorException If the actor has been stopped
+     */
+    public final void storeMessages(Collection<? extends T> messages, ActorRef<T> sender) throws NoSuchActorException {
+        if (!interrupted.get()) {
+            metrics.recordEnqueue(messages.size());
+            mailBox.addAll(messages, sender);
+            sampleDepth();
+            for (T message : messages)
+                notifyEnqueue(message, sender);
+            schedule();
+        } else throw new NoSuchActorException("Actor can not receive new message!");
+    }
+
+    /**
+     * Stores a new message into the mailbox without ever waiting for room and without failing,
+     * whatever the overflow policy: if the mailbox is full the message is dropped.
+     *
+     * @param message Message received
+     * @param sender Sender of the message
+     * @throws NoSuchActorException If the actor has been stopped
+     * @see MailBox#offer(Message, ActorRef)
+     */
+    final void offerMessage(T message, ActorRef<T> sender) throws NoSuchActorException {
+        if (!interrupted.get()) {
+            metrics.recordEnqueue();
+            mailBox.offer(message, sender);
+            sampleDepth();
+            notifyEnqueue(message, sender);
+            schedule();
+        } else throw new NoSuchActorException("Actor can not receive new message!");
+    }
+
+    /**
+     * Stores a batch of messages from possibly different senders into the mailbox, scheduling
+     * the actor only once. Consecutive messages of the same sender are added at once. Never
+     * waits for room and never fails, whatever the overflow policy: the messages that do not
+     * fit are dropped.
+     *
+     * @param messages Messages received
+     * @param senders Senders of the messages, one for each message
+     * @throws NoSuchActorException If the actor has been stopped
+     */
+    final void offerMessages(List<? extends T> messages, List<? extends ActorRef<T>> senders) throws NoSuchActorException {
+        if (!interrupted.get()) {
+            int size = messages.size();
+            metrics.recordEnqueue(size);
+            int from = 0;
+            for (int i = 1; i <= size; i++) {
+                ActorRef<T> sender = senders.get(from);
+                if (i == size || senders.get(i) != sender) {
+                    mailBox.offerAll(messages.subList(from, i), sender);
+                    for (int j = from; j < i; j++)
+                        notifyEnqueue(messages.get(j), sender);
+                    from = i;
+                }
             }
+            sampleDepth();
+            schedule();
+        } else throw new NoSuchActorException("Actor can not receive new message!");
+    }
+
+    /**
+     * Creates an envelope that can be added to the mailbox of this actor and of other ones.
+     *
+     * @param message Message received
+     * @param sender Sender of the message
+     * @return The envelope
+     */
+    final MailBox<T>.MailBoxItem newEnvelope(T message, ActorRef<T> sender) {
+        // Timestamped anyway, since it may be added to mailboxes that record the time spent in them
+        return mailBox.new MailBoxItem(message, sender, System.nanoTime());
+    }
+
+    /**
+     * Stores an envelope, possibly shared with other actors, into the mailbox.
+     *
+     * @param envelope The envelope of the message
+     * @throws NoSuchActorException If the actor has been stopped
+     */
+    final void storeEnvelope(MailBox<T>.MailBoxItem envelope) throws NoSuchActorException {
+        if (!interrupted.get()) {
+            metrics.recordEnqueue();
+            mailBox.add(envelope);
+            sampleDepth();
+            notifyEnqueue(envelope.getMessage(), envelope.getSender());
+            schedule();
         } else throw new NoSuchActorException("Actor can not receive new message!");
     }
 
+    private void sampleDepth() {
+        if (detailedMetrics)
+            metrics.sampleDepth(mailBox.getDroppedCount());
+    }
+
+    private void notifyEnqueue(T message, ActorRef<T> sender) {
+        ActorListener[] listeners = system.getListeners();
+        if (listeners.length != 0) {
+            for (ActorListener listener : listeners)
+                listener.onEnqueue(self, message, sender);
+        }
+    }
+
+    /**
+     * Hands the actor to the dispatcher, unless it has already been scheduled.
+     */
+    private void schedule() {
+        if (!scheduled.get() && scheduled.compareAndSet(false, true))
+            dispatcher.dispatch(messagesManager);
+    }
+
     /**
-     * Set to true the interrupted status flag of the actor.
+     * Set to true the interrupted status flag of the actor. The actor terminates as soon as
+     * its inbox has been flushed.
      */
     public void interrupt() throws NoSuchActorException {
-        if (interrupted)
+        if (!interrupted.compareAndSet(false, true))
             throw new NoSuchActorException("Actor has already been stopped!");
-        else interrupted = true;
+        // An idle actor is scheduled only to terminate
+        schedule();
     }
 
     /**
-     * Checks if the actor is interrupted.
+     * Makes the actor call {@link #handleSignal()} in its next turn. Unlike a message, a signal
+     * never goes through the mailbox, so it is neither dropped nor blocked by its overflow
+     * policy, and it is delivered even once the actor has been interrupted.
+     */
+    final void signal() {
+        signalled.set(true);
+        schedule();
+    }
+
+    /**
+     * Handles the signals received since the last turn, before the messages of the turn. By
+     * default does nothing.
+     */
+    void handleSignal() {
+    }
+
+    /**
+     * Checks if the actor has work that must be completed before it terminates, besides the
+     * messages in its mailbox. An interrupted actor with pending work terminates once a signal
+     * has completed it.
      *
-     * @return true if the actor is interrupted; false otherwise
+     * @return true if the actor can not terminate yet; false otherwise
+     */
+    boolean hasPendingWork() {
+        return false;
+    }
+
+    /**
+     * Reports to the listeners that the actor has thrown while handling a message outside of
+     * {@code receive}.
+     *
+     * @param message The message
+     * @param cause The exception thrown
      */
-    public synchronized boolean isInterrupted() {
-        return interrupted;
+    final void reportFailure(Message message, RuntimeException cause) {
+        for (ActorListener listener : system.getListeners())
+            listener.onReceiveFailure(self, message, cause);
     }
 
     /**
-     * Redefinition of the default constructor.
+     * Checks if the actor is interrupted.
+     *
+     * @return true if the actor is interrupted; false otherwise
      */
-    public AbsActor() {
-        new Thread(new MessagesManager()).start();
+    public boolean isInterrupted() {
+        return interrupted.get();
     }
 
     /**
-     * Manages messages received by an actor.
+     * Manages messages received by an actor. Every execution processes at most as many messages
+     * as the throughput of the dispatcher allows, and then releases the dispatcher thread.
+     * Signals are handled at the start of a turn, before its messages. Messages still in the
+     * mailbox when the actor is interrupted are processed anyway, then the actor terminates as
+     * soon as it has no pending work. A message whose {@code receive} throws is reported to the
+     * listeners and discarded, and does not stop the processing of the following ones.
      *
      * @author Nicola Dalla Costa
      * @version 1.0
@@ -117,36 +435,66 @@ public abstract class AbsActor<T extends Message> implements Actor<T> {
 
         @Override
         public void run() {
-            while (!interrupted) {
-                synchronized (mailBox) {
-                    while (mailBox.isEmpty()) {
-                        try {
-                            mailBox.wait();
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
+            int throughput = dispatcher.getThroughput();
+            long deadline = dispatcher.getThroughputDeadline();
+            // Listeners registered during the turn are notified from the next one
+            ActorListener[] listeners = system.getListeners();
+            metrics.sampleDepth(mailBox.getDroppedCount());
+            boolean timestamped = mailBox.isTimestamped();
+            long start = System.nanoTime();
+            long now = start;
+            try {
+                if (signalled.get() && signalled.compareAndSet(true, false))
+                    handleSignal();
+                MailBox<T>.MailBoxItem item;
+                for (int processed = 0; processed < throughput && (item = mailBox.remove()) != null; processed++) {
+                    // Read before the execution: reusable items are valid only until the next remove
+                    long waited = timestamped ? now - item.getEnqueuedAt() : -1L;
+                    try {
+                        if (listeners.length == 0)
+                            executeMessage(item);
+                        else executeMessage(item, listeners);
+                    } catch (RuntimeException e) {
+                        for (ActorListener listener : listeners)
+                            listener.onReceiveFailure(self, item.getMessage(), e);
                     }
+                    // The end of a receive is the start of the next one
+                    long end = System.nanoTime();
+                    metrics.recordMessage(waited, end - now);
+                    now = end;
+                    if (deadline > 0 && now - start >= deadline)
+                        break;
                 }
-
-                executeMessage();
+            } finally {
+                scheduled.set(false);
+                // Messages left by the limits of the turn, or stored after the last remove but
+                // before the reset of the flag, are processed in a new turn, as well as signals.
+                // Checked even if the turn has been cut short by an error, so that a stopped
+                // actor still terminates
+                if (!mailBox.isEmpty() || signalled.get())
+                    schedule();
+                else if (interrupted.get() && !hasPendingWork())
+                    system.terminate(AbsActor.this);
             }
-
-            flushInbox();
         }
 
-        private void executeMessage() {
-            MailBox<T>.MailBoxItem item = mailBox.remove();
-
-            synchronized (this) {
-                sender = item.getSender();
-                receive(item.getMessage());
-            }
+        private void executeMessage(MailBox<T>.MailBoxItem item) {
+            // No monitor is needed: the scheduled flag orders the executions of the manager
+            sender = item.getSender();
+            receive(item.getMessage());
         }
 
-        private void flushInbox() {
-            synchronized (mailBox) {
-                while (!mailBox.isEmpty())
-                    executeMessage();
+        private void executeMessage(MailBox<T>.MailBoxItem item, ActorListener[] listeners) {
+            T message = item.getMessage();
+            for (ActorListener listener : listeners)
+                listener.onDequeue(self, message, item.getSender());
+            for (ActorListener listener : listeners)
+                listener.onReceiveStart(self, message);
+            try {
+                executeMessage(item);
+            } finally {
+                for (ActorListener listener : listeners)
+                    listener.onReceiveEnd(self, message);
             }
         }
 
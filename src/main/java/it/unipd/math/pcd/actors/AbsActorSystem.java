@@ -30,13 +30,25 @@
 package it.unipd.math.pcd.actors;
 
 import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.metrics.MetricsRegistry;
+import it.unipd.math.pcd.actors.metrics.MetricsSnapshot;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
 
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * A map-based implementation of the actor system.
+ * A registry-based implementation of the actor system. Every system has its own
+ * {@link ActorRegistry registry}, so the actors of different systems are independent.
  *
  * @author Riccardo Cardin
  * @version 1.0
@@ -47,20 +59,115 @@ public abstract class AbsActorSystem implements ActorSystem {
     /**
      * Associates every Actor created with an identifier.
      */
-    private static final Map<ActorRef<?>, Actor<?>> actors = new ConcurrentHashMap<>();
+    private final ActorRegistry actors = new ActorRegistry();
+
+    /**
+     * Executes the actors of the system.
+     */
+    private final Dispatcher dispatcher;
+
+    /**
+     * Whether the dispatcher has been created by the system, and is shut down with it.
+     */
+    private final boolean ownsDispatcher;
+
+    /**
+     * Executes the scheduled sends and expires the requests made with ask, using a single thread
+     * for all of them.
+     */
+    private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 512);
+
+    /**
+     * Ships the messages to the actors of other systems, once the system listens.
+     */
+    private volatile RemoteTransport remoting;
+
+    /**
+     * Codecs of the messages shipped to other actor systems.
+     */
+    private final SerializerRegistry serializers = new SerializerRegistry();
+
+    private static final ActorListener[] NO_LISTENERS = new ActorListener[0];
+
+    /**
+     * Listeners of the system, replaced on every change so that notifying them needs no lock
+     */
+    private volatile ActorListener[] listeners = NO_LISTENERS;
+
+    /**
+     * Snapshots the metrics of the actors in the registry.
+     */
+    private final MetricsRegistry metrics = new MetricsRegistry() {
+        @Override
+        public MetricsSnapshot snapshot(ActorRef<?> actor) {
+            return ((AbsActor<?>) getActorByRef(actor)).getMetrics();
+        }
+
+        @Override
+        public Map<ActorRef<?>, MetricsSnapshot> snapshot() {
+            Map<ActorRef<?>, MetricsSnapshot> snapshots = new LinkedHashMap<>();
+            for (ActorRef<?> ref : actors.references()) {
+                AbsActor<?> actor = actors.get(getActorId(ref));
+                // Skips the actors terminated in the meantime
+                if (actor != null)
+                    snapshots.put(ref, actor.getMetrics());
+            }
+            return snapshots;
+        }
+    };
+
+    /**
+     * Creates an actor system that executes its actors on a {@link ThreadPoolDispatcher}.
+     */
+    public AbsActorSystem() {
+        this(new ThreadPoolDispatcher(), true);
+    }
+
+    /**
+     * Creates an actor system that executes its actors on the given {@code dispatcher}.
+     *
+     * @param dispatcher The dispatcher of the system
+     */
+    public AbsActorSystem(Dispatcher dispatcher) {
+        this(dispatcher, false);
+    }
+
+    private AbsActorSystem(Dispatcher dispatcher, boolean ownsDispatcher) {
+        this.dispatcher = dispatcher;
+        this.ownsDispatcher = ownsDispatcher;
+    }
 
     @Override
-    public ActorRef<? extends Message> actorOf(Class<? extends Actor> actor, ActorMode mode) {
+    public ActorRef<? extends Message> actorOf(Class<? extends Actor> actor, ActorConfig config) {
 
         // ActorRef instance
         ActorRef<?> reference;
         try {
             // Create the reference to the actor
-            reference = this.createActorReference(mode);
+            reference = this.createActorReference(config.getMode());
             // Create the new instance of the actor
-            Actor actorInstance = ((AbsActor) actor.newInstance()).setSelf(reference);
-            // Associate the reference to the actor
-            actors.put(reference, actorInstance);
+            AbsActor actorInstance = (AbsActor) actor.newInstance();
+            actorInstance.setSelf(reference);
+            actorInstance.setSystem(this);
+            Dispatcher actorDispatcher = dispatcherOf(actorInstance, config);
+            actorInstance.setDispatcher(actorDispatcher);
+            try {
+                actorInstance.setMailBox(config.getMailBoxFactory().create());
+                actorInstance.setDetailedMetrics(config.hasDetailedMetrics());
+                // The state of a persistent actor is recovered before it can receive any message
+                if (actorInstance instanceof PersistentActor)
+                    ((PersistentActor) actorInstance).recover(config.getJournal(), config.getPersistenceId());
+                // Associate the reference to the actor
+                actorInstance.setId(actors.register(reference, actorInstance));
+                bindActorReference(reference, actorInstance);
+            } catch (RuntimeException e) {
+                // The actor never terminates, since it is never published: its thread is released now
+                if (config.getPinnedIdleStrategy() != null)
+                    actorDispatcher.shutdown();
+                throw e;
+            }
+            for (ActorListener listener : listeners)
+                listener.onActorCreated(reference);
 
         } catch (InstantiationException | IllegalAccessException e) {
             throw new NoSuchActorException(e);
@@ -68,29 +175,404 @@ public abstract class AbsActorSystem implements ActorSystem {
         return reference;
     }
 
+    /**
+     * Selects the dispatcher of a new actor, creating its dedicated thread if it is pinned.
+     */
+    private Dispatcher dispatcherOf(AbsActor<?> actor, ActorConfig config) {
+        if (config.getPinnedIdleStrategy() != null) {
+            final Dispatcher pinned = new PinnedDispatcher(config.getPinnedIdleStrategy());
+            // Completed by the last turn of the actor, executed on the thread itself
+            actor.getTermination().thenRun(new Runnable() {
+                @Override
+                public void run() {
+                    pinned.shutdown();
+                }
+            });
+            return pinned;
+        }
+        return config.getDispatcher() != null ? config.getDispatcher() : dispatcher;
+    }
+
+    @Override
+    public ActorRef<? extends Message> actorOf(Class<? extends Actor> actor, ActorMode mode) {
+        return this.actorOf(actor, ActorConfig.defaults().withMode(mode));
+    }
+
     @Override
     public ActorRef<? extends Message> actorOf(Class<? extends Actor> actor) {
-        return this.actorOf(actor, ActorMode.LOCAL);
+        return this.actorOf(actor, ActorConfig.defaults());
+    }
+
+    @Override
+    public ActorRef<? extends Message> routerOf(Class<? extends Actor> actor, int routees, RoutingStrategy strategy) {
+        return routerOf(actor, routees, strategy, ActorConfig.defaults());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ActorRef<? extends Message> routerOf(Class<? extends Actor> actor, int routees, RoutingStrategy strategy,
+                                                ActorConfig config) {
+        if (routees <= 0)
+            throw new IllegalArgumentException("A router needs at least one routee");
+        if (strategy == null)
+            throw new IllegalArgumentException("The routing strategy must not be null");
+        // Routees are resolved once, so that routing a message needs no lookup
+        AbsActor[] instances = new AbsActor[routees];
+        for (int i = 0; i < routees; i++)
+            instances[i] = (AbsActor) getActorByRef(actorOf(actor, config));
+        return new RouterActorRef(this, strategy, instances);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ActorRef<? extends Message> groupOf(Iterable<? extends ActorRef<?>> members) {
+        List<AbsActor<?>> resolved = new ArrayList<>();
+        for (ActorRef<?> member : members)
+            resolved.add((AbsActor<?>) getActorByRef(member));
+        return new GroupActorRef(this, resolved.toArray(new AbsActor[resolved.size()]));
     }
 
     protected abstract ActorRef createActorReference(ActorMode mode);
 
+    /**
+     * Binds a reference directly to its actor, so that sending a message does not need to look
+     * the actor up. By default references are not bound.
+     *
+     * @param reference The reference created by {@link #createActorReference(ActorMode)}
+     * @param actor The actor referenced
+     */
+    protected void bindActorReference(ActorRef<?> reference, AbsActor<?> actor) {
+    }
+
+    /**
+     * Retrieves the identifier in the registry of the actor referenced by {@code reference}.
+     * By default the actor is looked up in the slot whose index is the hash code of the
+     * reference: systems whose references do not hash to the index of the slot of their actor
+     * must override it.
+     *
+     * @param reference The reference to the actor
+     * @return The identifier, or {@link ActorRegistry#NO_ID} if the reference is not registered
+     */
+    protected long getActorId(ActorRef<?> reference) {
+        AbsActor<?> actor = actors.find(reference);
+        return actor != null ? actor.getId() : ActorRegistry.NO_ID;
+    }
+
+    /**
+     * Invalidates the binding of a reference whose actor has been removed from the system.
+     *
+     * @param reference The reference created by {@link #createActorReference(ActorMode)}
+     */
+    protected void unbindActorReference(ActorRef<?> reference) {
+    }
+
+    /**
+     * Retrieves the dispatcher that executes the actors of the system.
+     *
+     * @return The dispatcher of the system
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     @Override
-    public void stop(ActorRef<?> ref) throws NoSuchActorException {
+    public synchronized void addListener(ActorListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("The listener must not be null");
+        ActorListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    @Override
+    public synchronized void removeListener(ActorListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i].equals(listener)) {
+                ActorListener[] updated = new ActorListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, updated, 0, i);
+                System.arraycopy(listeners, i + 1, updated, i, updated.length - i);
+                listeners = updated.length == 0 ? NO_LISTENERS : updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the listeners of the system.
+     *
+     * @return The listeners, empty if there are none; the array must not be modified
+     */
+    final ActorListener[] getListeners() {
+        return listeners;
+    }
+
+    @Override
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    @Override
+    public SerializerRegistry serializers() {
+        return serializers;
+    }
+
+    @Override
+    public CompletableFuture<Void> stop(ActorRef<?> ref) throws NoSuchActorException {
+        if (ref instanceof RouterActorRef)
+            return ((RouterActorRef<?>) ref).stop();
         AbsActor<?> actor = (AbsActor<?>) getActorByRef(ref);
+        // The actor is removed by its last execution, after the flush of the inbox
+        actor.interrupt();
+        return actor.getTermination();
+    }
+
+    @Override
+    public CompletableFuture<Void> stop() {
+        List<ActorRef<?>> references = actors.references();
+        CompletableFuture<?>[] terminations = new CompletableFuture<?>[references.size()];
+        int i = 0;
+        for (ActorRef<?> ref : references) {
+            AbsActor<?> actor = actors.get(getActorId(ref));
+            if (actor == null) {
+                // Already terminated
+                terminations[i++] = CompletableFuture.completedFuture(null);
+                continue;
+            }
+            try {
+                actor.interrupt();
+            } catch (NoSuchActorException e) {
+                // Already stopping, its termination is awaited as well
+            }
+            terminations[i++] = actor.getTermination();
+        }
+        return CompletableFuture.allOf(terminations);
+    }
+
+    @Override
+    public CompletableFuture<Void> shutdown() {
+        return stop().thenRun(new Runnable() {
+            @Override
+            public void run() {
+                closeRemoting();
+                timer.stop();
+                // A dispatcher given by the caller may be shared with other systems
+                if (ownsDispatcher)
+                    dispatcher.shutdown();
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> watch(ActorRef<?> ref) throws NoSuchActorException {
+        if (ref instanceof RouterActorRef) {
+            AbsActor<?>[] routees = ((RouterActorRef<?>) ref).getRoutees();
+            CompletableFuture<?>[] terminations = new CompletableFuture<?>[routees.length];
+            for (int i = 0; i < routees.length; i++)
+                terminations[i] = routees[i].getTermination();
+            return CompletableFuture.allOf(terminations);
+        }
+        return ((AbsActor<?>) getActorByRef(ref)).getTermination();
+    }
 
-        if (actor != null) {
-            actor.interrupt();
-            // remove actor only after the flush of the inbox
-            removeActorByRef(ref);
-        } else throw new NoSuchActorException("Actor not found!");
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R extends Message> CompletableFuture<R> ask(ActorRef<?> to, Message message, long timeout, TimeUnit unit) {
+        final PromiseActorRef promise = new PromiseActorRef(this);
+        deliver(message, promise, to);
+        promise.setTimeout(timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                promise.expire();
+            }
+        }, timeout, unit));
+        return promise.getResponse();
+    }
+
+    @Override
+    public Cancellable scheduleOnce(long delay, TimeUnit unit, final ActorRef<?> to, final Message message) {
+        return timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deliver(message, null, to);
+                } catch (NoSuchActorException e) {
+                    // The receiver has been stopped in the meantime
+                }
+            }
+        }, delay, unit);
     }
 
     @Override
-    public synchronized void stop() {
-        Iterator it = actors.keySet().iterator();
-        while (it.hasNext())
-            stop((ActorRef<?>) it.next());
+    public Cancellable scheduleAtFixedRate(long initialDelay, long period, TimeUnit unit,
+                                           final ActorRef<?> to, final Message message) {
+        final Cancellable[] schedule = new Cancellable[1];
+        schedule[0] = timer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deliver(message, null, to);
+                } catch (NoSuchActorException e) {
+                    // The receiver has been stopped: the sends end with it, from the next one at most
+                    Cancellable sends = schedule[0];
+                    if (sends != null)
+                        sends.cancel();
+                }
+            }
+        }, initialDelay, period, unit);
+        return schedule[0];
+    }
+
+    @Override
+    public InetSocketAddress listen(String host, int port) {
+        return listen(host, port, RemoteConfig.defaults());
+    }
+
+    @Override
+    public synchronized InetSocketAddress listen(String host, int port, RemoteConfig config) {
+        if (remoting != null)
+            throw new IllegalStateException("The actor system is already listening");
+        try {
+            remoting = new RemoteTransport(this, host, port, config);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new InetSocketAddress(host, remoting.getPort());
+    }
+
+    @Override
+    public ActorRef<? extends Message> actorFor(ActorAddress address) {
+        return new RemoteActorRef<>(this, address, getRemoteTransport().isLocal(address));
+    }
+
+    @Override
+    public ActorAddress addressOf(ActorRef<?> actor) {
+        if (actor instanceof RemoteActorRef)
+            return ((RemoteActorRef<?>) actor).getAddress();
+        RemoteTransport transport = getRemoteTransport();
+        return new ActorAddress(transport.getHost(), transport.getPort(), ((AbsActor<?>) getActorByRef(actor)).getId());
+    }
+
+    @Override
+    public synchronized void closeRemoting() {
+        if (remoting != null) {
+            remoting.close();
+            remoting = null;
+        }
+    }
+
+    /**
+     * Checks if the system accepts messages from other actor systems.
+     *
+     * @return true if the system is listening; false otherwise
+     */
+    protected boolean isListening() {
+        return remoting != null;
+    }
+
+    /**
+     * Retrieves the transport to the other actor systems.
+     *
+     * @return The transport
+     * @throws IllegalStateException If the system is not listening
+     */
+    final RemoteTransport getRemoteTransport() {
+        RemoteTransport transport = remoting;
+        if (transport == null)
+            throw new IllegalStateException("The actor system is not listening");
+        return transport;
+    }
+
+    /**
+     * Retrieves the identifier that other systems use to reach an actor of this system.
+     *
+     * @param ref The reference to the actor
+     * @return The identifier, or {@link ActorRegistry#NO_ID} if the actor does not exist
+     */
+    final long exportId(ActorRef<?> ref) {
+        AbsActor<?> actor = actors.get(getActorId(ref));
+        return actor != null ? actor.getId() : ActorRegistry.NO_ID;
+    }
+
+    /**
+     * Delivers a message received from another system to the actor with identifier {@code id}.
+     * Called by the thread of the remote transport, which serves every connection: the message
+     * is dropped if the mailbox is full, since waiting for room would stall all the connections.
+     *
+     * @param id The identifier of the receiver
+     * @param message The message
+     * @param sender The sender of the message, possibly null
+     * @throws NoSuchActorException If the receiver does not exist or has been stopped
+     */
+    @SuppressWarnings("unchecked")
+    final void deliverLocal(long id, Message message, ActorRef<?> sender) throws NoSuchActorException {
+        AbsActor actor = actors.get(id);
+        if (actor == null)
+            throw new NoSuchActorException();
+        actor.offerMessage(message, sender);
+    }
+
+    /**
+     * Delivers a batch of messages received from another system to the actor with identifier
+     * {@code id}, scheduling it only once. The messages that do not fit in the mailbox are
+     * dropped, as by {@link #deliverLocal(long, Message, ActorRef)}.
+     *
+     * @param id The identifier of the receiver
+     * @param messages The messages
+     * @param senders The senders of the messages, possibly null
+     * @throws NoSuchActorException If the receiver does not exist or has been stopped
+     */
+    @SuppressWarnings("unchecked")
+    final void deliverLocal(long id, List<Message> messages, List<ActorRef<?>> senders) throws NoSuchActorException {
+        AbsActor actor = actors.get(id);
+        if (actor == null)
+            throw new NoSuchActorException();
+        actor.offerMessages(messages, senders);
+    }
+
+    /**
+     * Delivers {@code message} to the actor referenced by {@code to}.
+     *
+     * @param message The message
+     * @param sender The sender of the message
+     * @param to The reference to the receiver
+     * @throws NoSuchActorException If the receiver does not exist or has been stopped
+     */
+    @SuppressWarnings("unchecked")
+    public void deliver(Message message, ActorRef sender, ActorRef to) throws NoSuchActorException {
+        if (to instanceof Recipient)
+            ((Recipient) to).deliver(message, sender);
+        else ((AbsActor) getActorByRef(to)).storeMessage(message, sender);
+    }
+
+    /**
+     * Delivers {@code message} to the actor referenced by {@code to} with an explicit priority.
+     *
+     * @param message The message
+     * @param sender The sender of the message
+     * @param to The reference to the receiver
+     * @param priority The priority of the message, where 0 is the highest
+     * @throws NoSuchActorException If the receiver does not exist or has been stopped
+     */
+    @SuppressWarnings("unchecked")
+    public void deliver(Message message, ActorRef sender, ActorRef to, int priority) throws NoSuchActorException {
+        if (to instanceof Recipient)
+            ((Recipient) to).deliver(message, sender, priority);
+        else ((AbsActor) getActorByRef(to)).storeMessage(message, sender, priority);
+    }
+
+    /**
+     * Delivers a batch of messages to the actor referenced by {@code to}, in order.
+     *
+     * @param messages The messages
+     * @param sender The sender of the messages
+     * @param to The reference to the receiver
+     * @throws NoSuchActorException If the receiver does not exist or has been stopped
+     */
+    @SuppressWarnings("unchecked")
+    public void deliverAll(Collection<? extends Message> messages, ActorRef sender, ActorRef to) throws NoSuchActorException {
+        if (to instanceof Recipient)
+            ((Recipient) to).deliverAll(messages, sender);
+        else ((AbsActor) getActorByRef(to)).storeMessages(messages, sender);
     }
 
     /**
@@ -101,25 +583,25 @@ public abstract class AbsActorSystem implements ActorSystem {
      * @throws NoSuchActorException
      */
     public Actor getActorByRef(ActorRef ref) throws NoSuchActorException {
-        Actor actor = actors.get(ref);
+        Actor actor = actors.get(getActorId(ref));
 
         if (actor == null)
             throw new NoSuchActorException();
         else return actor;
     }
 
-    public synchronized void removeActorByRef(ActorRef<? extends Message> ref) {
-        AbsActor actor = (AbsActor) getActorByRef(ref);
-
-        while (!actor.isInterrupted()) {
-            try {
-                actor.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+    /**
+     * Removes a stopped actor that has flushed its inbox, and then notifies its termination.
+     *
+     * @param actor The actor
+     */
+    void terminate(AbsActor<?> actor) {
+        if (actors.remove(actor.getId())) {
+            unbindActorReference(actor.self);
+            for (ActorListener listener : listeners)
+                listener.onActorStopped(actor.self);
+            actor.getTermination().complete(null);
         }
-
-        actors.remove(ref);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defines common properties of all dispatchers: how long an actor may keep a thread before
+ * yielding it to other actors.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class AbsDispatcher implements Dispatcher {
+
+    /**
+     * Default maximum number of messages processed by an actor in a scheduling turn
+     */
+    public static final int DEFAULT_THROUGHPUT = 100;
+
+    private final int throughput;
+    private final long throughputDeadline;
+
+    /**
+     * Creates a dispatcher with the default throughput and no deadline.
+     */
+    protected AbsDispatcher() {
+        this(DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Three-arguments constructor definition.
+     *
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    protected AbsDispatcher(int throughput, long deadline, TimeUnit unit) {
+        if (throughput <= 0)
+            throw new IllegalArgumentException("The throughput must be positive");
+        if (deadline < 0)
+            throw new IllegalArgumentException("The deadline can not be negative");
+        this.throughput = throughput;
+        this.throughputDeadline = unit.toNanos(deadline);
+    }
+
+    @Override
+    public int getThroughput() {
+        return throughput;
+    }
+
+    @Override
+    public long getThroughputDeadline() {
+        return throughputDeadline;
+    }
+}
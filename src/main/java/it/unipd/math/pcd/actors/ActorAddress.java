@@ -0,0 +1,112 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.io.Serializable;
+
+/**
+ * Location of an actor reachable from other actor systems: the address the system of the actor
+ * listens on, and the identifier of the actor in that system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see ActorSystem#listen(String, int)
+ */
+public final class ActorAddress implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final int port;
+    private final long id;
+
+    /**
+     * Three-arguments constructor definition.
+     *
+     * @param host The host the actor system listens on
+     * @param port The port the actor system listens on
+     * @param id The identifier of the actor in its system
+     */
+    public ActorAddress(String host, int port, long id) {
+        if (host == null || port <= 0 || port > 65535)
+            throw new IllegalArgumentException("Invalid address " + host + ":" + port);
+        this.host = host;
+        this.port = port;
+        this.id = id;
+    }
+
+    /**
+     * Retrieves the host the actor system listens on.
+     *
+     * @return The host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Retrieves the port the actor system listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Retrieves the identifier of the actor in its system.
+     *
+     * @return The identifier
+     */
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof ActorAddress))
+            return false;
+        ActorAddress address = (ActorAddress) other;
+        return port == address.port && id == address.id && host.equals(address.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return (host.hashCode() * 31 + port) * 31 + Long.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "pcd-actors://" + host + ":" + port + "/" + id;
+    }
+}
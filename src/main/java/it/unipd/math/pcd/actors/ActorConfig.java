@@ -0,0 +1,215 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.persistence.Journal;
+
+/**
+ * Options used to create an actor. Instances are immutable: every {@code with} method
+ * returns a new configuration.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ActorConfig {
+
+    private static final ActorConfig DEFAULT =
+            new ActorConfig(ActorSystem.ActorMode.LOCAL, null, null, MailBoxFactory.unbounded(), null, null, false);
+
+    private final ActorSystem.ActorMode mode;
+    private final Dispatcher dispatcher;
+    private final IdleStrategy pinned;
+    private final MailBoxFactory mailBoxFactory;
+    private final Journal journal;
+    private final String persistenceId;
+    private final boolean detailedMetrics;
+
+    private ActorConfig(ActorSystem.ActorMode mode, Dispatcher dispatcher, IdleStrategy pinned,
+                        MailBoxFactory mailBoxFactory, Journal journal, String persistenceId,
+                        boolean detailedMetrics) {
+        this.mode = mode;
+        this.dispatcher = dispatcher;
+        this.pinned = pinned;
+        this.mailBoxFactory = mailBoxFactory;
+        this.journal = journal;
+        this.persistenceId = persistenceId;
+        this.detailedMetrics = detailedMetrics;
+    }
+
+    /**
+     * Retrieves the configuration of a local actor executed by the dispatcher of its system.
+     *
+     * @return The default configuration
+     */
+    public static ActorConfig defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a copy of this configuration with the given mode.
+     *
+     * @param mode The mode of the actor
+     * @return The new configuration
+     */
+    public ActorConfig withMode(ActorSystem.ActorMode mode) {
+        if (mode == null)
+            throw new IllegalArgumentException("The mode can not be null");
+        return new ActorConfig(mode, dispatcher, pinned, mailBoxFactory, journal, persistenceId, detailedMetrics);
+    }
+
+    /**
+     * Creates a copy of this configuration that executes the actor on the given dispatcher,
+     * instead of the one of the actor system.
+     *
+     * @param dispatcher The dispatcher of the actor
+     * @return The new configuration
+     */
+    public ActorConfig withDispatcher(Dispatcher dispatcher) {
+        return new ActorConfig(mode, dispatcher, null, mailBoxFactory, journal, persistenceId, detailedMetrics);
+    }
+
+    /**
+     * Creates a copy of this configuration that executes the actor on a dedicated thread, created
+     * with the actor and released when it terminates. It replaces any dispatcher set before.
+     *
+     * @param idleStrategy How the thread waits for messages, e.g. {@link IdleStrategy#busySpin()}
+     * @return The new configuration
+     * @see PinnedDispatcher
+     */
+    public ActorConfig withPinnedDispatcher(IdleStrategy idleStrategy) {
+        if (idleStrategy == null)
+            throw new IllegalArgumentException("The idle strategy can not be null");
+        return new ActorConfig(mode, null, idleStrategy, mailBoxFactory, journal, persistenceId, detailedMetrics);
+    }
+
+    /**
+     * Creates a copy of this configuration whose actor uses the mailboxes created by the given factory.
+     *
+     * @param mailBoxFactory The factory of the mailbox, e.g. {@link MailBoxFactory#bounded}
+     * @return The new configuration
+     */
+    public ActorConfig withMailBox(MailBoxFactory mailBoxFactory) {
+        if (mailBoxFactory == null)
+            throw new IllegalArgumentException("The mailbox factory can not be null");
+        return new ActorConfig(mode, dispatcher, pinned, mailBoxFactory, journal, persistenceId, detailedMetrics);
+    }
+
+    /**
+     * Creates a copy of this configuration whose {@link PersistentActor persistent actor} stores
+     * its events in the given journal. Actors created with the same persistence identifier, e.g.
+     * after a restart, share the same events.
+     *
+     * @param journal The journal of the events
+     * @param persistenceId The identifier of the events of the actor
+     * @return The new configuration
+     */
+    public ActorConfig withPersistence(Journal journal, String persistenceId) {
+        if (journal == null || persistenceId == null)
+            throw new IllegalArgumentException("The journal and the persistence identifier can not be null");
+        return new ActorConfig(mode, dispatcher, pinned, mailBoxFactory, journal, persistenceId, detailedMetrics);
+    }
+
+    /**
+     * Creates a copy of this configuration whose actor records detailed metrics: the time every
+     * message spends in the mailbox, and the depth of the mailbox after every enqueue. Both cost
+     * the senders a read of the clock and of the counters of the actor, so they are disabled by
+     * default.
+     *
+     * @return The new configuration
+     * @see it.unipd.math.pcd.actors.metrics.MetricsSnapshot
+     */
+    public ActorConfig withDetailedMetrics() {
+        return new ActorConfig(mode, dispatcher, pinned, mailBoxFactory, journal, persistenceId, true);
+    }
+
+    /**
+     * Retrieves the mode of the actor.
+     *
+     * @return The mode of the actor
+     */
+    public ActorSystem.ActorMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Retrieves the dispatcher of the actor.
+     *
+     * @return The dispatcher of the actor, or null to use the one of the actor system
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Retrieves the idle strategy of the dedicated thread of the actor.
+     *
+     * @return The idle strategy, or null if the actor is not pinned to a thread
+     */
+    public IdleStrategy getPinnedIdleStrategy() {
+        return pinned;
+    }
+
+    /**
+     * Retrieves the factory of the mailbox of the actor.
+     *
+     * @return The factory of the mailbox
+     */
+    public MailBoxFactory getMailBoxFactory() {
+        return mailBoxFactory;
+    }
+
+    /**
+     * Retrieves the journal of the events of the actor.
+     *
+     * @return The journal, or null if the actor is not persistent
+     */
+    public Journal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Retrieves the identifier of the events of the actor in its journal.
+     *
+     * @return The persistence identifier, or null if the actor is not persistent
+     */
+    public String getPersistenceId() {
+        return persistenceId;
+    }
+
+    /**
+     * Checks if the actor records detailed metrics.
+     *
+     * @return true if the actor records detailed metrics; false otherwise
+     */
+    public boolean hasDetailedMetrics() {
+        return detailedMetrics;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+/**
+ * Listener notified of the lifecycle of the actors of a system and of their messages, e.g. to
+ * trace or profile them. All the methods do nothing by default.
+ * <p/>
+ * Listeners are invoked synchronously, by the sender for an enqueue and by the thread executing
+ * the actor otherwise, so they must be fast and must not throw. When no listener is registered
+ * the notifications cost a check of an empty array.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see ActorSystem#addListener(ActorListener)
+ */
+public interface ActorListener {
+
+    /**
+     * Notifies that an actor has been created.
+     *
+     * @param actor The reference to the actor
+     */
+    default void onActorCreated(ActorRef<?> actor) {
+    }
+
+    /**
+     * Notifies that a stopped actor has flushed its inbox and has been removed from the system.
+     *
+     * @param actor The reference to the actor
+     */
+    default void onActorStopped(ActorRef<?> actor) {
+    }
+
+    /**
+     * Notifies that a message has been added to the mailbox of an actor.
+     *
+     * @param actor The reference to the receiver
+     * @param message The message
+     * @param sender The sender of the message
+     */
+    default void onEnqueue(ActorRef<?> actor, Message message, ActorRef<?> sender) {
+    }
+
+    /**
+     * Notifies that a message has been removed from the mailbox of an actor to be processed.
+     *
+     * @param actor The reference to the receiver
+     * @param message The message
+     * @param sender The sender of the message
+     */
+    default void onDequeue(ActorRef<?> actor, Message message, ActorRef<?> sender) {
+    }
+
+    /**
+     * Notifies that an actor is about to receive a message.
+     *
+     * @param actor The reference to the receiver
+     * @param message The message
+     */
+    default void onReceiveStart(ActorRef<?> actor, Message message) {
+    }
+
+    /**
+     * Notifies that an actor has received a message, even if {@code receive} has thrown.
+     *
+     * @param actor The reference to the receiver
+     * @param message The message
+     */
+    default void onReceiveEnd(ActorRef<?> actor, Message message) {
+    }
+
+    /**
+     * Notifies that an actor has thrown while receiving a message. The message is discarded and
+     * the actor goes on with the next one.
+     *
+     * @param actor The reference to the receiver
+     * @param message The message
+     * @param cause The exception thrown by {@code receive}
+     */
+    default void onReceiveFailure(ActorRef<?> actor, Message message, Throwable cause) {
+    }
+}
@@ -29,6 +29,8 @@
 
 package it.unipd.math.pcd.actors;
 
+import java.util.Collection;
+
 /**
  * A reference of an actor that allow to locate it in the actor system.
  * Using this reference it is possible to send a message among actors.
@@ -46,4 +48,28 @@ public interface ActorRef<T extends Message> extends Comparable<ActorRef> {
      * @param to The actor to which sending the message
      */
     void send(T message, ActorRef to);
+
+    /**
+     * Sends a {@code message} to another actor with an explicit priority. The priority is taken
+     * into account only if the receiver uses a {@link PriorityMailBox}.
+     *
+     * @param message The message to send
+     * @param to The actor to which sending the message
+     * @param priority The priority of the message, where 0 is the highest
+     */
+    default void send(T message, ActorRef to, int priority) {
+        send(message, to);
+    }
+
+    /**
+     * Sends a batch of messages to another actor, in order. References that support it add the
+     * whole batch to the mailbox of the receiver at once, and wake the receiver only once.
+     *
+     * @param messages The messages to send
+     * @param to The actor to which sending the messages
+     */
+    default void sendAll(Collection<? extends T> messages, ActorRef to) {
+        for (T message : messages)
+            send(message, to);
+    }
 }
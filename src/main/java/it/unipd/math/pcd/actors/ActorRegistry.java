@@ -0,0 +1,263 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry of the actors of a system, addressed by numeric identifiers. An identifier packs
+ * the index of a slot and the generation of the slot: the generation is incremented every time
+ * the slot is freed, so an identifier of a removed actor never resolves to the actor that
+ * reuses its slot.
+ * <p/>
+ * Slots are grouped in chunks allocated on demand, that are never moved: a lookup is a
+ * bounds-checked read of two arrays. Registration and removal are lock-free, except for the
+ * rare growth of the table of chunks, and allocate nothing but the entry: freed slots are kept
+ * in a stack linked through an array of indexes, whose top is tagged with the generation of
+ * the slot so that a concurrent pop and push of the same slot is detected.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ActorRegistry {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Identifier that is never assigned to an actor
+     */
+    public static final long NO_ID = -1L;
+
+    private volatile Chunk[] chunks = new Chunk[4];
+
+    // Next index never used so far
+    private final AtomicInteger next = new AtomicInteger();
+    // Identifier of the last slot freed, i.e. its index and its new generation, or NO_ID
+    private final AtomicLong free = new AtomicLong(NO_ID);
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Registers an actor.
+     *
+     * @param reference The reference to the actor
+     * @param actor The actor
+     * @return The identifier of the actor
+     */
+    public long register(ActorRef<?> reference, AbsActor<?> actor) {
+        int index = popFree();
+        if (index < 0)
+            index = next.getAndIncrement();
+        if (index < 0)
+            throw new IllegalStateException("Too many actors");
+
+        Chunk chunk = chunk(index);
+        int offset = index & CHUNK_MASK;
+        int generation = chunk.generations.get(offset);
+        chunk.entries.set(offset, new Entry(generation, reference, actor));
+        size.incrementAndGet();
+        return toId(index, generation);
+    }
+
+    /**
+     * Retrieves the actor with the given identifier.
+     *
+     * @param id The identifier of the actor
+     * @return The actor, or null if there is no actor with that identifier
+     */
+    public AbsActor<?> get(long id) {
+        Entry entry = entry(id);
+        return entry != null ? entry.actor : null;
+    }
+
+    /**
+     * Retrieves the actor of a reference that does not expose its identifier, e.g. a decorated
+     * reference. The reference must hash to the index of the slot of its actor: the lookup
+     * compares it only with the reference registered in that slot.
+     *
+     * @param reference The reference to the actor
+     * @return The actor, or null if the reference is not registered
+     */
+    public AbsActor<?> find(ActorRef<?> reference) {
+        Entry entry = slot(reference.hashCode());
+        return entry != null && reference.equals(entry.reference) ? entry.actor : null;
+    }
+
+    /**
+     * Removes the actor with the given identifier.
+     *
+     * @param id The identifier of the actor
+     * @return true if the actor has been removed; false if there was no actor with that identifier
+     */
+    public boolean remove(long id) {
+        Entry entry = entry(id);
+        if (entry == null)
+            return false;
+
+        int index = (int) id;
+        Chunk chunk = chunks[index >>> CHUNK_BITS];
+        int offset = index & CHUNK_MASK;
+        if (!chunk.entries.compareAndSet(offset, entry, null))
+            return false;
+        // The slot is reused only after its generation has changed
+        int generation = chunk.generations.incrementAndGet(offset);
+        size.decrementAndGet();
+        pushFree(chunk, index, generation);
+        return true;
+    }
+
+    /**
+     * Retrieves the references to the registered actors.
+     *
+     * @return A snapshot of the references
+     */
+    public List<ActorRef<?>> references() {
+        List<ActorRef<?>> references = new ArrayList<>(size.get());
+        for (Chunk chunk : chunks) {
+            if (chunk == null)
+                continue;
+            for (int offset = 0; offset < CHUNK_SIZE; offset++) {
+                Entry entry = chunk.entries.get(offset);
+                if (entry != null)
+                    references.add(entry.reference);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Retrieves the number of registered actors.
+     *
+     * @return The number of actors
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private Entry entry(long id) {
+        Entry entry = slot((int) id);
+        return entry != null && entry.generation == (int) (id >>> 32) ? entry : null;
+    }
+
+    private Entry slot(int index) {
+        if (index < 0)
+            return null;
+
+        Chunk[] snapshot = chunks;
+        int chunkIndex = index >>> CHUNK_BITS;
+        if (chunkIndex >= snapshot.length || snapshot[chunkIndex] == null)
+            return null;
+        return snapshot[chunkIndex].entries.get(index & CHUNK_MASK);
+    }
+
+    private void pushFree(Chunk chunk, int index, int generation) {
+        long top = toId(index, generation);
+        long head;
+        do {
+            head = free.get();
+            chunk.nextFree.set(index & CHUNK_MASK, head == NO_ID ? -1 : (int) head);
+        } while (!free.compareAndSet(head, top));
+    }
+
+    private int popFree() {
+        for (;;) {
+            long head = free.get();
+            if (head == NO_ID)
+                return -1;
+            int index = (int) head;
+            Chunk[] snapshot = chunks;
+            int next = snapshot[index >>> CHUNK_BITS].nextFree.get(index & CHUNK_MASK);
+            // A slot is pushed again only with a new generation, so a stale head never matches
+            long below = next < 0 ? NO_ID
+                    : toId(next, snapshot[next >>> CHUNK_BITS].generations.get(next & CHUNK_MASK));
+            if (free.compareAndSet(head, below))
+                return index;
+        }
+    }
+
+    private Chunk chunk(int index) {
+        int chunkIndex = index >>> CHUNK_BITS;
+        Chunk[] snapshot = chunks;
+        if (chunkIndex < snapshot.length && snapshot[chunkIndex] != null)
+            return snapshot[chunkIndex];
+        return allocateChunk(chunkIndex);
+    }
+
+    private synchronized Chunk allocateChunk(int chunkIndex) {
+        Chunk[] snapshot = chunks;
+        if (chunkIndex >= snapshot.length) {
+            Chunk[] grown = new Chunk[Math.max(snapshot.length * 2, chunkIndex + 1)];
+            System.arraycopy(snapshot, 0, grown, 0, snapshot.length);
+            snapshot = grown;
+        }
+        if (snapshot[chunkIndex] == null)
+            snapshot[chunkIndex] = new Chunk();
+        // Publishes the new chunk
+        chunks = snapshot;
+        return snapshot[chunkIndex];
+    }
+
+    private static long toId(int index, int generation) {
+        return ((long) generation << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Fixed-size group of slots.
+     */
+    private static final class Chunk {
+        final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicIntegerArray generations = new AtomicIntegerArray(CHUNK_SIZE);
+        // Index of the slot freed before each free slot, or -1
+        final AtomicIntegerArray nextFree = new AtomicIntegerArray(CHUNK_SIZE);
+    }
+
+    /**
+     * Content of an occupied slot.
+     */
+    private static final class Entry {
+        final int generation;
+        final ActorRef<?> reference;
+        final AbsActor<?> actor;
+
+        Entry(int generation, ActorRef<?> reference, AbsActor<?> actor) {
+            this.generation = generation;
+            this.reference = reference;
+            this.actor = actor;
+        }
+    }
+}
@@ -29,6 +29,14 @@
 
 package it.unipd.math.pcd.actors;
 
+import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.metrics.MetricsRegistry;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The system of actors. Using the system it is possible to:
  * <ul>
@@ -52,6 +60,17 @@ public interface ActorSystem {
      */
     ActorRef<? extends Message> actorOf(Class<? extends Actor> actor, ActorMode mode);
 
+    /**
+     * Create an instance of {@code actor} returning a {@link ActorRef reference} to it using the given
+     * {@code config}, e.g. to execute the actor on a dedicated {@link Dispatcher}.
+     *
+     * @param actor The type of actor that has to be created
+     * @param config The options of the actor requested
+     *
+     * @return A reference to the actor
+     */
+    ActorRef<? extends Message> actorOf(Class<? extends Actor> actor, ActorConfig config);
+
     /**
      * Create an instance of {@code actor} that executes locally.
      *
@@ -61,16 +80,204 @@ public interface ActorSystem {
     ActorRef<? extends Message> actorOf(Class<? extends Actor> actor);
 
     /**
-     * Stops {@code actor}.
+     * Creates a pool of {@code routees} instances of {@code actor}, returning a reference that
+     * forwards every message sent to it to one of them, picked according to {@code strategy}.
+     * Stopping the reference stops all the routees.
+     *
+     * @param actor The type of the routees
+     * @param routees The number of routees
+     * @param strategy The strategy used to pick the routee of every message
+     * @return A reference to the router
+     */
+    ActorRef<? extends Message> routerOf(Class<? extends Actor> actor, int routees, RoutingStrategy strategy);
+
+    /**
+     * Creates a pool of {@code routees} instances of {@code actor} using the given {@code config},
+     * returning a reference that forwards every message sent to it to one of them.
+     *
+     * @param actor The type of the routees
+     * @param routees The number of routees
+     * @param strategy The strategy used to pick the routee of every message
+     * @param config The options of every routee
+     * @return A reference to the router
+     */
+    ActorRef<? extends Message> routerOf(Class<? extends Actor> actor, int routees, RoutingStrategy strategy,
+                                         ActorConfig config);
+
+    /**
+     * Creates a reference that broadcasts every message sent to it to all the given actors.
+     * The actors are looked up once, here, so broadcasting a message costs an enqueue per member.
+     *
+     * @param members The actors of the group
+     * @return A reference to the group
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If one of the actors does not exist
+     */
+    ActorRef<? extends Message> groupOf(Iterable<? extends ActorRef<?>> members);
+
+    /**
+     * Stops {@code actor}. The actor does not accept new messages, but it still processes the
+     * ones in its inbox. The call does not wait for the actor to terminate.
      *
      * @param actor The actor to be stopped
+     * @return A future completed once the actor has flushed its inbox and has been removed
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the actor does not exist or
+     *         has already been stopped
+     */
+    CompletableFuture<Void> stop(ActorRef<?> actor);
+
+    /**
+     * Stops all actors of the system, without waiting for them to terminate.
+     *
+     * @return A future completed once all the actors have terminated
+     */
+    CompletableFuture<Void> stop();
+
+    /**
+     * Stops all actors of the system and, once they have terminated, closes the connections to
+     * other actor systems and releases the threads owned by the system, those of the timer and of
+     * the dispatcher. The system cannot be used after the call.
+     *
+     * @return A future completed once all the actors have terminated and the threads are released
+     */
+    CompletableFuture<Void> shutdown();
+
+    /**
+     * Watches the termination of {@code actor}, e.g. to register a callback on it.
+     *
+     * @param actor The actor to be watched
+     * @return A future completed once the actor has been stopped and has flushed its inbox
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the actor does not exist
+     */
+    CompletableFuture<Void> watch(ActorRef<?> actor);
+
+    /**
+     * Sends {@code message} to {@code to} and waits asynchronously for its response. The receiver
+     * sees as sender a temporary reference: the first message sent to it is the response.
+     *
+     * @param to The actor to which sending the message
+     * @param message The request
+     * @param timeout Maximum time to wait for the response
+     * @param unit Unit of the timeout
+     * @param <R> The type of the response
+     * @return A future completed with the response, or with a
+     *         {@link java.util.concurrent.TimeoutException} if the timeout expires first
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the actor does not exist
+     */
+    <R extends Message> CompletableFuture<R> ask(ActorRef<?> to, Message message, long timeout, TimeUnit unit);
+
+    /**
+     * Retrieves the runtime metrics of the actors of the system, such as the depth of their
+     * mailboxes and the time spent processing messages.
+     *
+     * @return The metrics registry of the system
+     */
+    MetricsRegistry metrics();
+
+    /**
+     * Retrieves the codecs of the messages shipped to other actor systems. Codecs should be
+     * registered before the system exchanges messages, and with the same identifiers in every
+     * system; messages without a codec are shipped using Java serialization.
+     *
+     * @return The serializer registry of the system
+     */
+    SerializerRegistry serializers();
+
+    /**
+     * Sends {@code message} to {@code to} once, after {@code delay}. The message has no sender.
+     * The send is executed by the timer of the system, so the receiver should not use a mailbox
+     * that blocks its senders.
+     *
+     * @param delay The delay of the send
+     * @param unit Unit of the delay
+     * @param to The actor to which sending the message
+     * @param message The message
+     * @return The handle to cancel the send; once cancelled, the message is not referenced anymore
      */
-    void stop(ActorRef<?> actor);
+    Cancellable scheduleOnce(long delay, TimeUnit unit, ActorRef<?> to, Message message);
 
     /**
-     * Stops all actors of the system.
+     * Sends {@code message} to {@code to} periodically, every {@code period} from the end of
+     * {@code initialDelay}, e.g. as a tick. The message has no sender. The sends end when they are
+     * cancelled, or when the receiver is stopped.
+     *
+     * @param initialDelay The delay of the first send
+     * @param period The period between the sends
+     * @param unit Unit of the delay and of the period
+     * @param to The actor to which sending the message
+     * @param message The message
+     * @return The handle to cancel the sends; once cancelled, the message is not referenced anymore
+     */
+    Cancellable scheduleAtFixedRate(long initialDelay, long period, TimeUnit unit, ActorRef<?> to, Message message);
+
+    /**
+     * Starts accepting messages from other actor systems, in this or in other processes, on
+     * {@code host} and {@code port}. Once the system listens, it can create actors in
+     * {@link ActorMode#REMOTE REMOTE} mode and reference the actors of other systems. The
+     * messages to the same system are batched as {@link RemoteConfig#defaults()} describes.
+     *
+     * @param host The host to listen on, which is also the host other systems connect to
+     * @param port The port to listen on, or 0 for any free port
+     * @return The address the system listens on
+     * @throws IllegalStateException If the system is already listening
+     * @throws java.io.UncheckedIOException If the port can not be opened
+     */
+    InetSocketAddress listen(String host, int port);
+
+    /**
+     * Starts accepting messages from other actor systems, as {@link #listen(String, int)} does,
+     * with the given options of the connections, e.g. how messages are batched.
+     *
+     * @param host The host to listen on, which is also the host other systems connect to
+     * @param port The port to listen on, or 0 for any free port
+     * @param config The options of the connections
+     * @return The address the system listens on
+     * @throws IllegalStateException If the system is already listening
+     * @throws java.io.UncheckedIOException If the port can not be opened
+     */
+    InetSocketAddress listen(String host, int port, RemoteConfig config);
+
+    /**
+     * Retrieves a reference to the actor at {@code address}, which can belong to this system or
+     * to another one. Messages sent to an actor of another system are serialized, and shipped
+     * over the only connection to that system; they are lost if the connection fails.
+     *
+     * @param address The address of the actor
+     * @return A reference to the actor
+     * @throws IllegalStateException If the system is not listening
+     */
+    ActorRef<? extends Message> actorFor(ActorAddress address);
+
+    /**
+     * Retrieves the address other systems use to reach an actor of this system.
+     *
+     * @param actor The reference to the actor
+     * @return The address of the actor
+     * @throws IllegalStateException If the system is not listening
+     * @throws NoSuchActorException If the actor does not exist
+     */
+    ActorAddress addressOf(ActorRef<?> actor);
+
+    /**
+     * Stops accepting messages from other actor systems, and closes the connections to them.
+     * Does nothing if the system is not listening.
+     */
+    void closeRemoting();
+
+    /**
+     * Registers a listener notified of the lifecycle of the actors of the system and of their
+     * messages. A listener registered while an actor is running is notified of the messages
+     * it processes from its next scheduling turn.
+     *
+     * @param listener The listener
+     */
+    void addListener(ActorListener listener);
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener
      */
-    void stop();
+    void removeListener(ActorListener listener);
 
     /**
      * Possible modes to create an actor. {@code LOCALE} mode is used to create an actor
@@ -0,0 +1,246 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mailbox that holds at most a fixed number of messages. The free slots are tracked by a
+ * non-fair semaphore: while the mailbox is not full, adding and removing a message cost a
+ * compare-and-set on the semaphore plus a lock-free enqueue, and no lock is taken. What happens
+ * when the mailbox is full is defined by an {@link OverflowPolicy}.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class BoundedMailBox<T extends Message> extends MailBox<T> {
+
+    // Multi-consumer queue: the DROP_OLDEST policy removes messages on the sender side
+    private final Queue<MailBoxItem> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore freeSlots;
+    private final LongAdder dropped = new LongAdder();
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final long timeout;
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param capacity Maximum number of messages
+     * @param policy Policy applied when the mailbox is full
+     */
+    public BoundedMailBox(int capacity, OverflowPolicy policy) {
+        this(capacity, policy, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Four-arguments constructor definition.
+     *
+     * @param capacity Maximum number of messages
+     * @param policy Policy applied when the mailbox is full
+     * @param timeout Maximum time a sender waits using the {@code BLOCK_WITH_TIMEOUT} policy
+     * @param unit Unit of the timeout
+     */
+    public BoundedMailBox(int capacity, OverflowPolicy policy, long timeout, TimeUnit unit) {
+        checkArguments(capacity, policy, unit);
+        this.capacity = capacity;
+        this.policy = policy;
+        this.timeout = unit.toNanos(timeout);
+        this.freeSlots = new Semaphore(capacity);
+    }
+
+    /**
+     * Checks the arguments of a bounded mailbox, without creating it.
+     *
+     * @param capacity Maximum number of messages
+     * @param policy Policy applied when the mailbox is full
+     * @param unit Unit of the timeout
+     * @throws IllegalArgumentException If an argument is not valid
+     */
+    static void checkArguments(int capacity, OverflowPolicy policy, TimeUnit unit) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("The capacity must be positive");
+        if (policy == null)
+            throw new IllegalArgumentException("The overflow policy can not be null");
+        if (unit == null)
+            throw new IllegalArgumentException("The unit of the timeout can not be null");
+    }
+
+    @Override
+    public void add(T message, ActorRef<T> sender) {
+        add(new MailBoxItem(message, sender));
+    }
+
+    @Override
+    public void add(MailBoxItem item) {
+        if (freeSlots.tryAcquire() || acquireOnOverflow())
+            queue.offer(item);
+    }
+
+    @Override
+    public void addAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        addAll(messages, sender, true);
+    }
+
+    @Override
+    void offer(T message, ActorRef<T> sender) {
+        offer(new MailBoxItem(message, sender));
+    }
+
+    @Override
+    void offerAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        addAll(messages, sender, false);
+    }
+
+    /**
+     * Adds a batch of messages, possibly applying the overflow policy.
+     *
+     * @param messages Messages received
+     * @param sender Sender of the messages
+     * @param wait true to apply the overflow policy to the messages that do not fit; false to
+     *             drop them without waiting
+     */
+    private void addAll(Collection<? extends T> messages, ActorRef<T> sender, boolean wait) {
+        List<MailBoxItem> items = new ArrayList<>(messages.size());
+        for (T message : messages)
+            items.add(new MailBoxItem(message, sender));
+        if (items.isEmpty())
+            return;
+        // Acquires all the slots at once, otherwise the policy is applied to each message
+        if (freeSlots.tryAcquire(items.size())) {
+            // Spliced with a single compare-and-set
+            queue.addAll(items);
+        } else {
+            for (MailBoxItem item : items) {
+                if (wait)
+                    add(item);
+                else offer(item);
+            }
+        }
+    }
+
+    private void offer(MailBoxItem item) {
+        // Dropping the oldest message is the only policy that neither waits nor fails
+        if (freeSlots.tryAcquire() || (policy == OverflowPolicy.DROP_OLDEST && acquireOnOverflow()))
+            queue.offer(item);
+        else dropped.increment();
+    }
+
+    /**
+     * Applies the overflow policy.
+     *
+     * @return true if a slot has been acquired for the new message; false if it has been dropped
+     */
+    private boolean acquireOnOverflow() {
+        switch (policy) {
+            case BLOCK:
+                try {
+                    freeSlots.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            case BLOCK_WITH_TIMEOUT:
+                try {
+                    if (freeSlots.tryAcquire(timeout, TimeUnit.NANOSECONDS))
+                        return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case DROP_OLDEST:
+                do {
+                    // The slot of the oldest message is handed to the new one
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                        return true;
+                    }
+                    // The mailbox is full of messages not enqueued yet by other senders
+                    Thread.yield();
+                } while (!freeSlots.tryAcquire());
+                return true;
+            case FAIL:
+                dropped.increment();
+                throw new MailBoxOverflowException("Mailbox full, capacity " + capacity);
+            default:
+                break;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public MailBoxItem remove() {
+        MailBoxItem item = queue.poll();
+        if (item != null)
+            freeSlots.release();
+        return item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Retrieves the maximum number of messages of the mailbox.
+     *
+     * @return The capacity of the mailbox
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the policy applied when the mailbox is full.
+     *
+     * @return The overflow policy
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+/**
+ * Schedules the execution of actors on a set of threads. An actor is handed to the
+ * dispatcher only when its mailbox goes from empty to non-empty, and it gives back
+ * its thread as soon as the mailbox has been drained.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Dispatcher {
+
+    /**
+     * Schedules the execution of a task that processes the messages of an actor.
+     *
+     * @param task The task to be executed
+     */
+    void dispatch(Runnable task);
+
+    /**
+     * Retrieves the maximum number of messages an actor processes in a scheduling turn before
+     * yielding its thread. Higher values favour cache locality and fewer context switches of
+     * hot actors, lower values favour fairness among actors.
+     *
+     * @return The number of messages
+     */
+    int getThroughput();
+
+    /**
+     * Retrieves the maximum duration of a scheduling turn, checked after each message.
+     *
+     * @return The duration in nanoseconds, or 0 if a turn is limited only by the throughput
+     */
+    long getThroughputDeadline();
+
+    /**
+     * Releases the threads owned by the dispatcher. Tasks already dispatched are completed.
+     */
+    void shutdown();
+}
@@ -0,0 +1,120 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher that executes actors on a work-stealing {@link ForkJoinPool} in async mode. An
+ * actor scheduled by a thread of the pool, i.e. woken by a message sent from another actor, is
+ * pushed on the local queue of that thread, so it is likely executed on the same core right
+ * after the sender; idle threads steal actors from the queues of the busy ones, so a few hot
+ * actors do not leave the rest of the pool idle.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class ForkJoinDispatcher extends AbsDispatcher {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a dispatcher with a thread for each available processor.
+     */
+    public ForkJoinDispatcher() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * One-argument constructor definition.
+     *
+     * @param parallelism Number of threads of the pool
+     */
+    public ForkJoinDispatcher(int parallelism) {
+        this(parallelism, DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Four-arguments constructor definition.
+     *
+     * @param parallelism Number of threads of the pool
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    public ForkJoinDispatcher(int parallelism, int throughput, long deadline, TimeUnit unit) {
+        super(throughput, deadline, unit);
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("The pool must have at least one thread");
+        // Async mode: local queues are FIFO, as actors are never joined
+        this.pool = new ForkJoinPool(parallelism, new WorkerThreadFactory(), null, true);
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool)
+            ForkJoinTask.adapt(task).fork();
+        else pool.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Creates the daemon threads of the pool, named like the ones of the other dispatchers.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    static class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private static final AtomicInteger poolNumber = new AtomicInteger();
+
+        private final String prefix = "pcd-actors-forkjoin-" + poolNumber.incrementAndGet() + "-";
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+
+/**
+ * Reference that broadcasts every message sent to it to a fixed group of actors. The members
+ * are resolved once, when the group is created, and every message is wrapped in a single
+ * envelope shared by the mailboxes of all of them, so the cost of a broadcast is an enqueue per
+ * member. Members that have been stopped are skipped, and a member whose full mailbox rejects
+ * the message does not prevent the delivery to the others: the mailbox counts the message as
+ * dropped, and it is reported by the metrics of the member.
+ * <p/>
+ * The group does not own its members: stopping them is up to their creators.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see ActorSystem#groupOf(Iterable)
+ */
+class GroupActorRef<T extends Message> implements ActorRef<T>, Recipient<T> {
+
+    private final AbsActorSystem actorSystem;
+    private final AbsActor<T>[] members;
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param actorSystem The actor system of the members
+     * @param members The members of the group
+     */
+    GroupActorRef(AbsActorSystem actorSystem, AbsActor<T>[] members) {
+        this.actorSystem = actorSystem;
+        this.members = members;
+    }
+
+    /**
+     * Retrieves the number of members of the group.
+     *
+     * @return The size of the group
+     */
+    int size() {
+        return members.length;
+    }
+
+    @Override
+    public void send(T message, ActorRef to) {
+        actorSystem.deliver(message, this, to);
+    }
+
+    @Override
+    public void send(T message, ActorRef to, int priority) {
+        actorSystem.deliver(message, this, to, priority);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender) {
+        MailBox<T>.MailBoxItem envelope = null;
+        for (AbsActor<T> member : members) {
+            if (member.isInterrupted())
+                continue;
+            if (envelope == null)
+                envelope = member.newEnvelope(message, sender);
+            try {
+                member.storeEnvelope(envelope);
+            } catch (NoSuchActorException e) {
+                // Stopped in the meantime
+            } catch (MailBoxOverflowException e) {
+                // Already counted as dropped by the mailbox of the member
+            }
+        }
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender, int priority) {
+        for (AbsActor<T> member : members) {
+            if (member.isInterrupted())
+                continue;
+            try {
+                member.storeMessage(message, sender, priority);
+            } catch (NoSuchActorException e) {
+                // Stopped in the meantime
+            } catch (MailBoxOverflowException e) {
+                // Already counted as dropped by the mailbox of the member
+            }
+        }
+    }
+
+    @Override
+    public int compareTo(ActorRef ref) {
+        return (this == ref) ? 0 : -1;
+    }
+}
@@ -0,0 +1,334 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer that executes tasks after a delay on a single thread, using a hashed timing wheel: a ring
+ * of buckets, each one holding the doubly linked list of the tasks that expire when the wheel
+ * points at it, possibly after some more rounds. Scheduling and cancelling a task cost O(1)
+ * whatever the number of pending tasks, at the price of a precision of a tick.
+ * <p/>
+ * Tasks are handed to the thread of the wheel through a lock-free queue, and the same holds for
+ * cancellations, so that the buckets are accessed only by the thread of the wheel. A cancelled
+ * task releases its reference to the task immediately. The thread is started by the first task,
+ * and it parks without ticking while no task is pending.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+final class HashedWheelTimer {
+
+    private static final AtomicInteger timerNumber = new AtomicInteger();
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    // Tasks scheduled and neither expired nor cancelled yet, periodic ones included
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private final AtomicInteger started = new AtomicInteger();
+    // True while the worker may be parked with no task pending
+    private volatile boolean idle;
+    private volatile boolean stopped;
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param tick Duration of a tick, i.e. the precision of the timer
+     * @param unit Unit of the tick
+     * @param wheelSize Number of buckets, rounded up to the next power of two
+     */
+    HashedWheelTimer(long tick, TimeUnit unit, int wheelSize) {
+        if (tick <= 0 || wheelSize <= 0 || wheelSize > 1 << 30)
+            throw new IllegalArgumentException("The tick and the size of the wheel must be positive");
+        this.tickNanos = unit.toNanos(tick);
+        int size = 1;
+        while (size < wheelSize)
+            size <<= 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+            wheel[i] = new Bucket();
+        this.mask = size - 1;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runWheel();
+            }
+        }, "pcd-actors-timer-" + timerNumber.incrementAndGet());
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Executes {@code task} once after {@code delay}.
+     *
+     * @param task The task
+     * @param delay The delay
+     * @param unit Unit of the delay
+     * @return The handle to cancel the task
+     */
+    Cancellable schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new Timeout(this, task, elapsed() + Math.max(unit.toNanos(delay), 0L), 0L));
+    }
+
+    /**
+     * Executes {@code task} periodically, every {@code period} from the end of {@code initialDelay}.
+     * Executions are not delayed by the previous ones.
+     *
+     * @param task The task
+     * @param initialDelay The delay of the first execution
+     * @param period The period between the executions
+     * @param unit Unit of the delay and of the period
+     * @return The handle to cancel the task
+     */
+    Cancellable scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0)
+            throw new IllegalArgumentException("The period must be positive");
+        return add(new Timeout(this, task, elapsed() + Math.max(unit.toNanos(initialDelay), 0L),
+                unit.toNanos(period)));
+    }
+
+    /**
+     * Stops the timer and terminates its thread. The tasks not executed yet are discarded.
+     */
+    void stop() {
+        stopped = true;
+        // A timer never started does not start anymore
+        if (!started.compareAndSet(0, 1))
+            LockSupport.unpark(worker);
+    }
+
+    private Timeout add(Timeout timeout) {
+        if (timeout.task == null)
+            throw new IllegalArgumentException("The task can not be null");
+        if (stopped)
+            throw new IllegalStateException("The timer has been stopped");
+        if (started.get() == 0 && started.compareAndSet(0, 1))
+            worker.start();
+        active.incrementAndGet();
+        pending.offer(timeout);
+        if (idle)
+            LockSupport.unpark(worker);
+        return timeout;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - startTime;
+    }
+
+    private void runWheel() {
+        long tick = elapsed() / tickNanos;
+        while (!stopped) {
+            // Processes every tick elapsed, late ones included
+            long current = elapsed() / tickNanos;
+            while (tick <= current) {
+                transferPending(tick);
+                transferCancelled();
+                expire(wheel[(int) tick & mask], tick);
+                tick++;
+            }
+
+            if (active.get() == 0) {
+                // Published before checking again, so that a new task either sees the flag or is seen
+                idle = true;
+                if (active.get() == 0 && !stopped)
+                    LockSupport.park(this);
+                idle = false;
+                // No bucket holds a task: the ticks elapsed meanwhile are skipped
+                tick = Math.max(tick, elapsed() / tickNanos);
+            } else {
+                LockSupport.parkNanos(this, tick * tickNanos - elapsed());
+            }
+        }
+    }
+
+    private void transferPending(long tick) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state != Timeout.WAITING)
+                continue;
+            // Rounded up, so that a task never expires before its deadline
+            long expiration = Math.max((timeout.deadline + tickNanos - 1) / tickNanos, tick);
+            timeout.remainingRounds = (expiration - tick) / wheel.length;
+            wheel[(int) expiration & mask].add(timeout);
+        }
+    }
+
+    private void transferCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null)
+                timeout.bucket.remove(timeout);
+            active.decrementAndGet();
+        }
+    }
+
+    private void expire(Bucket bucket, long tick) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state != Timeout.WAITING) {
+                // Cancelled: unlinked here, counted by the transfer of the cancellations
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Task scheduled on the wheel.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    static final class Timeout implements Cancellable {
+
+        static final int WAITING = 0;
+        static final int EXPIRED = 1;
+        static final int CANCELLED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+
+        // Released on cancellation
+        private volatile Runnable task;
+        private volatile int state = WAITING;
+        private long deadline;
+        private final long period;
+
+        // Accessed only by the thread of the wheel
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadline, long period) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        private void expire() {
+            Runnable current = task;
+            if (period == 0L) {
+                if (!STATE.compareAndSet(this, WAITING, EXPIRED))
+                    return;
+                task = null;
+                timer.active.decrementAndGet();
+            }
+            if (current != null) {
+                try {
+                    current.run();
+                } catch (RuntimeException | Error e) {
+                    // The thread of the wheel survives a failed task
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+            if (period != 0L) {
+                // Rescheduled from the previous deadline, so that executions do not drift
+                deadline += period;
+                timer.pending.offer(this);
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED))
+                return false;
+            task = null;
+            timer.cancelled.offer(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /**
+     * Doubly linked list of the tasks of a slot of the wheel.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null)
+                head = timeout;
+            else tail.next = timeout;
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this)
+                return;
+            if (timeout.previous == null)
+                head = timeout.next;
+            else timeout.previous.next = timeout.next;
+            if (timeout.next == null)
+                tail = timeout.previous;
+            else timeout.next.previous = timeout.previous;
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Defines how a dispatcher thread waits when it has no actor to execute, trading CPU for
+ * wake-up latency. It is chosen per actor, with {@link ActorConfig#withPinnedDispatcher}, or
+ * per dispatcher, with {@link ThreadPoolDispatcher#ThreadPoolDispatcher(int, IdleStrategy)}.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public interface IdleStrategy {
+
+    /**
+     * Waits for new work.
+     *
+     * @param attempts Number of consecutive calls without work in between, starting from 0
+     */
+    void idle(int attempts);
+
+    /**
+     * Checks if the strategy may park the thread, in which case the dispatcher must unpark it
+     * when an actor is scheduled.
+     *
+     * @return true if the thread may be parked; false otherwise
+     */
+    boolean parks();
+
+    /**
+     * Retrieves a strategy that never releases the processor. It gives the lowest wake-up latency,
+     * but it keeps a core busy.
+     *
+     * @return The strategy
+     */
+    static IdleStrategy busySpin() {
+        return new IdleStrategy() {
+            @Override
+            public void idle(int attempts) {
+            }
+
+            @Override
+            public boolean parks() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a strategy that spins for a while, and then parks the thread for exponentially
+     * longer periods, up to {@code maxPark}.
+     *
+     * @param spins Number of attempts spent spinning
+     * @param maxPark Maximum time the thread is parked at once
+     * @param unit Unit of the time
+     * @return The strategy
+     */
+    static IdleStrategy spinThenPark(final int spins, long maxPark, TimeUnit unit) {
+        if (spins < 0 || maxPark <= 0)
+            throw new IllegalArgumentException("The spins can not be negative, and the park must be positive");
+        final long maxParkNanos = unit.toNanos(maxPark);
+        return new IdleStrategy() {
+            @Override
+            public void idle(int attempts) {
+                if (attempts >= spins)
+                    LockSupport.parkNanos(Math.min(maxParkNanos, 1000L << Math.min(attempts - spins, 20)));
+            }
+
+            @Override
+            public boolean parks() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a strategy that spins for a while, and then yields the processor to other threads
+     * at every attempt, without ever parking the thread.
+     *
+     * @param spins Number of attempts spent spinning
+     * @return The strategy
+     */
+    static IdleStrategy spinThenYield(final int spins) {
+        if (spins < 0)
+            throw new IllegalArgumentException("The spins can not be negative");
+        return new IdleStrategy() {
+            @Override
+            public void idle(int attempts) {
+                if (attempts >= spins)
+                    Thread.yield();
+            }
+
+            @Override
+            public boolean parks() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a strategy that parks the thread until an actor is scheduled. It costs no CPU
+     * while idle, but waking the thread up takes tens of microseconds.
+     *
+     * @return The strategy
+     */
+    static IdleStrategy blocking() {
+        return new IdleStrategy() {
+            @Override
+            public void idle(int attempts) {
+                LockSupport.park(this);
+            }
+
+            @Override
+            public boolean parks() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unbounded queue of the tasks of a pool of threads, whose consumers wait for new tasks
+ * according to an {@link IdleStrategy} instead of blocking on a lock.
+ * <p/>
+ * A consumer that may be parked registers itself in a free slot of a fixed array before
+ * checking the queue for the last time, and clears its slot before polling it again; a producer
+ * clears the slot of one registered consumer with a CAS and unparks it, after adding its task.
+ * Hence either the consumer sees the task, or the producer sees the consumer, and waiting
+ * allocates nothing. The array has a slot for each consumer of the pool: a consumer that finds
+ * no free slot yields instead of parking.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+final class IdleStrategyQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<Thread> parked;
+    private final IdleStrategy idleStrategy;
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param idleStrategy How the consumers wait for new tasks
+     * @param consumers Number of consumers that may wait at the same time
+     */
+    IdleStrategyQueue(IdleStrategy idleStrategy, int consumers) {
+        this.idleStrategy = idleStrategy;
+        this.parked = new AtomicReferenceArray<>(consumers);
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        tasks.offer(task);
+        if (idleStrategy.parks()) {
+            for (int slot = 0; slot < parked.length(); slot++) {
+                Thread consumer = parked.get(slot);
+                if (consumer != null && parked.compareAndSet(slot, consumer, null)) {
+                    LockSupport.unpark(consumer);
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(Runnable task) {
+        offer(task);
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable poll() {
+        return tasks.poll();
+    }
+
+    @Override
+    public Runnable peek() {
+        return tasks.peek();
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        return poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = timeout == Long.MAX_VALUE ? 0L : System.nanoTime() + unit.toNanos(timeout);
+        int attempts = 0;
+        for (;;) {
+            Runnable task = tasks.poll();
+            if (task != null)
+                return task;
+            // The pool interrupts idle threads when it is shut down
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (deadline != 0L && System.nanoTime() - deadline >= 0)
+                return null;
+            if (idleStrategy.parks()) {
+                Thread current = Thread.currentThread();
+                int slot = register(current);
+                if (slot < 0) {
+                    // No producer could wake this consumer up
+                    Thread.yield();
+                    continue;
+                }
+                if (tasks.isEmpty())
+                    idleStrategy.idle(attempts++);
+                // Fails if a producer has already cleared the slot to unpark this consumer
+                parked.compareAndSet(slot, current, null);
+            } else {
+                idleStrategy.idle(attempts++);
+            }
+        }
+    }
+
+    private int register(Thread consumer) {
+        int length = parked.length();
+        // Consumers start from different slots, so that they seldom compete for the same one
+        int start = (int) (consumer.getId() % length);
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            if (parked.get(slot) == null && parked.compareAndSet(slot, null, consumer))
+                return slot;
+        }
+        return -1;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        int drained = 0;
+        Runnable task;
+        while (drained < maxElements && (task = tasks.poll()) != null) {
+            collection.add(task);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public Iterator<Runnable> iterator() {
+        return tasks.iterator();
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+}
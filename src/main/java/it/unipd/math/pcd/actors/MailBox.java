@@ -29,20 +29,20 @@
 
 package it.unipd.math.pcd.actors;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Collection;
 
 /**
- * Defines the structure of the mailbox.
+ * Defines the structure of the mailbox. A mailbox is written by many senders concurrently,
+ * but it is read by a single consumer at a time, the actor that owns it.
  *
  * @author Nicola Dalla Costa
  * @version 1.0
  * @since 1.0
  */
-public class MailBox<T extends Message> {
+public abstract class MailBox<T extends Message> {
 
-    // BlockingQueue implementation is not synchronized. Access must be synchronized
-    private final BlockingQueue<MailBoxItem> queue = new LinkedBlockingQueue<>();
+    // Whether the items record the time of their enqueue, set before the mailbox is shared
+    private boolean timestamped;
 
     /**
      * Adds a new MailBoxItem (message and sender) to the end of the queue.
@@ -50,45 +50,125 @@ public class MailBox<T extends Message> {
      * @param message Message received
      * @param sender Sender of the message
      */
-    public void add(T message, ActorRef<T> sender) {
-        synchronized (queue) {
-            try {
-                queue.put(new MailBoxItem(message, sender));
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+    public abstract void add(T message, ActorRef<T> sender);
+
+    /**
+     * Adds a new MailBoxItem (message and sender) with an explicit priority. Mailboxes that do
+     * not support priorities ignore it.
+     *
+     * @param message Message received
+     * @param sender Sender of the message
+     * @param priority Priority of the message, where 0 is the highest
+     */
+    public void add(T message, ActorRef<T> sender, int priority) {
+        add(message, sender);
     }
 
     /**
-     * Removes and retrieves the oldest MailBoxItem (message and sender) form the queue.
+     * Adds a batch of messages from the same sender, in order. Mailboxes that support it add the
+     * whole batch with a single atomic operation; by default the messages are added one at a time.
      *
-     * @return MailBoxItem (message and sender)
+     * @param messages Messages received
+     * @param sender Sender of the messages
      */
-    public MailBoxItem remove() {
-        synchronized (queue) {
-            try {
-                return queue.take();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-                return null;
-            }
-        }
+    public void addAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        for (T message : messages)
+            add(message, sender);
+    }
+
+    /**
+     * Adds a new MailBoxItem (message and sender) without ever waiting for room and without
+     * failing: if the mailbox is full the message is dropped, unless the overflow policy drops
+     * the oldest one. Used by the threads that must never block, e.g. the thread of the remote
+     * transport. By default the message is added as by {@link #add(Message, ActorRef)}, as for
+     * mailboxes that never wait.
+     *
+     * @param message Message received
+     * @param sender Sender of the message
+     */
+    void offer(T message, ActorRef<T> sender) {
+        add(message, sender);
+    }
+
+    /**
+     * Adds a batch of messages from the same sender, in order, without ever waiting for room and
+     * without failing, as {@link #offer(Message, ActorRef)} does. By default the messages are
+     * added as by {@link #addAll(Collection, ActorRef)}, as for mailboxes that never wait.
+     *
+     * @param messages Messages received
+     * @param sender Sender of the messages
+     */
+    void offerAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        addAll(messages, sender);
     }
 
     /**
-     * Checks if the mailbox is empty.
+     * Adds an item created by any mailbox, e.g. an envelope shared by the mailboxes of all the
+     * receivers of a broadcast. By default the message and the sender are copied into a new item.
+     *
+     * @param item The item, that must not be modified anymore
+     */
+    public void add(MailBoxItem item) {
+        add(item.getMessage(), item.getSender());
+    }
+
+    /**
+     * Removes and retrieves the oldest MailBoxItem (message and sender) form the queue.
+     * Must be called only by the consumer.
+     *
+     * @return MailBoxItem (message and sender), or null if the mailbox is empty
+     */
+    public abstract MailBoxItem remove();
+
+    /**
+     * Checks if the mailbox is empty. Must be called only by the consumer.
      *
      * @return true if the mailbox is empty; false otherwise
      */
-    public boolean isEmpty() {
-        synchronized (queue) {
-            return queue.isEmpty();
-        }
+    public abstract boolean isEmpty();
+
+    /**
+     * Retrieves the number of messages dropped because the mailbox was full.
+     *
+     * @return The number of dropped messages
+     */
+    public long getDroppedCount() {
+        return 0;
     }
 
     /**
-     * Defines mailbox item structure.
+     * Makes the items record the time of their enqueue, to measure the time they spend in the
+     * mailbox. Must be called before the mailbox is used. Mailboxes made of other mailboxes
+     * must propagate it.
+     *
+     * @param timestamped true to record the time of the enqueues; false otherwise
+     */
+    void setTimestamped(boolean timestamped) {
+        this.timestamped = timestamped;
+    }
+
+    /**
+     * Checks if the items record the time of their enqueue.
+     *
+     * @return true if the time of the enqueues is recorded; false otherwise
+     */
+    final boolean isTimestamped() {
+        return timestamped;
+    }
+
+    /**
+     * Retrieves the time of an enqueue, reading the clock only if the mailbox is timestamped.
+     *
+     * @return The time, as given by {@link System#nanoTime()}, or 0
+     */
+    final long timestamp() {
+        return timestamped ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Defines mailbox item structure. Items returned by a {@link RingMailBox} are reused, and are
+     * valid only until the next remove; any other item may be shared by several mailboxes, so it
+     * is never modified once added.
      *
      * @author Nicola Dalla Costa
      * @version 1.0
@@ -96,19 +176,45 @@ public class MailBox<T extends Message> {
      */
     class MailBoxItem {
 
-        private final T message;
-        private final ActorRef<T> sender;
+        private T message;
+        private ActorRef<T> sender;
+        private long enqueuedAt;
 
         /**
-         * Two-arguments constructor.
+         * Two-arguments constructor, taking the time of the enqueue if the mailbox is timestamped.
          *
          * @param message Message received
          * @param sender Sender of the message
          */
         public MailBoxItem(T message, ActorRef<T> sender) {
+            this(message, sender, timestamp());
+        }
+
+        /**
+         * Three-arguments constructor definition.
+         *
+         * @param message Message received
+         * @param sender Sender of the message
+         * @param enqueuedAt Time of the enqueue, as given by {@link System#nanoTime()}, or 0
+         */
+        MailBoxItem(T message, ActorRef<T> sender, long enqueuedAt) {
             super();
             this.message = message;
             this.sender = sender;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        /**
+         * Replaces the content of a reusable item.
+         *
+         * @param message Message received
+         * @param sender Sender of the message
+         * @param enqueuedAt Time of the enqueue, as given by {@link System#nanoTime()}, or 0
+         */
+        void reset(T message, ActorRef<T> sender, long enqueuedAt) {
+            this.message = message;
+            this.sender = sender;
+            this.enqueuedAt = enqueuedAt;
         }
 
         /**
@@ -128,5 +234,15 @@ public class MailBox<T extends Message> {
         public ActorRef<T> getSender() {
             return sender;
         }
+
+        /**
+         * Retrieves the time the message has been added to the mailbox.
+         *
+         * @return Time of the enqueue, as given by {@link System#nanoTime()}, or 0 if the
+         *         mailbox is not timestamped
+         */
+        long getEnqueuedAt() {
+            return enqueuedAt;
+        }
     }
 }
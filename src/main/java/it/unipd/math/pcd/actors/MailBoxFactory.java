@@ -0,0 +1,157 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the mailbox of an actor.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public interface MailBoxFactory {
+
+    /**
+     * Creates a new mailbox.
+     *
+     * @param <T> The type of messages stored in the mailbox
+     * @return A new empty mailbox
+     */
+    <T extends Message> MailBox<T> create();
+
+    /**
+     * Retrieves a factory of unbounded {@link MpscMailBox lock-free mailboxes}.
+     *
+     * @return The factory
+     */
+    static MailBoxFactory unbounded() {
+        return new MailBoxFactory() {
+            @Override
+            public <T extends Message> MailBox<T> create() {
+                return new MpscMailBox<>();
+            }
+        };
+    }
+
+    /**
+     * Retrieves a factory of {@link BoundedMailBox bounded mailboxes}.
+     *
+     * @param capacity Maximum number of messages
+     * @param policy Policy applied when the mailbox is full
+     * @return The factory
+     */
+    static MailBoxFactory bounded(final int capacity, final OverflowPolicy policy) {
+        return bounded(capacity, policy, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Retrieves a factory of {@link BoundedMailBox bounded mailboxes}.
+     *
+     * @param capacity Maximum number of messages
+     * @param policy Policy applied when the mailbox is full
+     * @param timeout Maximum time a sender waits using the {@code BLOCK_WITH_TIMEOUT} policy
+     * @param unit Unit of the timeout
+     * @return The factory
+     */
+    static MailBoxFactory bounded(final int capacity, final OverflowPolicy policy,
+                                  final long timeout, final TimeUnit unit) {
+        // Validates the arguments when the actor is configured, not when it is created
+        BoundedMailBox.checkArguments(capacity, policy, unit);
+        return new MailBoxFactory() {
+            @Override
+            public <T extends Message> MailBox<T> create() {
+                return new BoundedMailBox<>(capacity, policy, timeout, unit);
+            }
+        };
+    }
+
+    /**
+     * Retrieves a factory of {@link PriorityMailBox priority mailboxes}, whose default priority
+     * is the lowest one.
+     *
+     * @param levels Number of priority levels
+     * @return The factory
+     */
+    static MailBoxFactory priority(final int levels) {
+        return priority(levels, levels - 1);
+    }
+
+    /**
+     * Retrieves a factory of {@link PriorityMailBox priority mailboxes}.
+     *
+     * @param levels Number of priority levels
+     * @param defaultPriority Priority of messages that do not define one
+     * @return The factory
+     */
+    static MailBoxFactory priority(final int levels, final int defaultPriority) {
+        // Validates the arguments when the actor is configured, not when it is created
+        PriorityMailBox.checkArguments(levels, defaultPriority);
+        return new MailBoxFactory() {
+            @Override
+            public <T extends Message> MailBox<T> create() {
+                return new PriorityMailBox<>(levels, defaultPriority);
+            }
+        };
+    }
+
+    /**
+     * Retrieves a factory of {@link RingMailBox allocation-free ring mailboxes}, whose senders
+     * wait while the ring is full.
+     *
+     * @param capacity Number of slots, rounded up to the next power of two
+     * @return The factory
+     */
+    static MailBoxFactory ring(final int capacity) {
+        return ring(capacity, OverflowPolicy.BLOCK, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Retrieves a factory of {@link RingMailBox allocation-free ring mailboxes}.
+     *
+     * @param capacity Number of slots, rounded up to the next power of two
+     * @param policy Policy applied when the ring is full, except {@link OverflowPolicy#DROP_OLDEST}
+     * @param timeout Maximum time a sender waits using the {@code BLOCK_WITH_TIMEOUT} policy
+     * @param unit Unit of the timeout
+     * @return The factory
+     */
+    static MailBoxFactory ring(final int capacity, final OverflowPolicy policy,
+                               final long timeout, final TimeUnit unit) {
+        // Validates the arguments when the actor is configured, not when it is created
+        RingMailBox.checkArguments(capacity, policy, unit);
+        return new MailBoxFactory() {
+            @Override
+            public <T extends Message> MailBox<T> create() {
+                return new RingMailBox<>(capacity, policy, timeout, unit);
+            }
+        };
+    }
+}
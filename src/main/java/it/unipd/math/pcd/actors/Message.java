@@ -37,12 +37,16 @@
  */
 package it.unipd.math.pcd.actors;
 
+import java.io.Serializable;
+
 /**
- * A message that can be sent among actors
+ * A message that can be sent among actors. Messages sent to actors of other systems are
+ * serialized by the codec registered for their class, or else by Java serialization, in which
+ * case their fields must be serializable as well.
  *
  * @author Riccardo Cardin
  * @version 1.0
  * @since 1.0
  */
-public interface Message {
+public interface Message extends Serializable {
 }
@@ -0,0 +1,139 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Lock-free multi-producer/single-consumer mailbox. Senders enqueue with a single atomic
+ * exchange on the tail of a linked list, while the consumer moves the head without any
+ * atomic operation.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class MpscMailBox<T extends Message> extends MailBox<T> {
+
+    private static final AtomicReferenceFieldUpdater<MpscMailBox, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(MpscMailBox.class, Node.class, "tail");
+
+    // Last node added by the producers
+    private volatile Node<MailBoxItem> tail;
+
+    // Last node consumed, only accessed by the consumer
+    private Node<MailBoxItem> head;
+
+    /**
+     * Default constructor definition.
+     */
+    public MpscMailBox() {
+        head = new Node<>(null);
+        tail = head;
+    }
+
+    @Override
+    public void add(T message, ActorRef<T> sender) {
+        add(new MailBoxItem(message, sender));
+    }
+
+    @Override
+    public void add(MailBoxItem item) {
+        Node<MailBoxItem> node = new Node<>(item);
+        Node<MailBoxItem> previous = TAIL.getAndSet(this, node);
+        // Until the link is published the consumer sees the queue as ending at previous
+        previous.lazySetNext(node);
+    }
+
+    @Override
+    public void addAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        Node<MailBoxItem> first = null;
+        Node<MailBoxItem> last = null;
+        // The chain is private until it is spliced, so it is linked without any atomic operation
+        for (T message : messages) {
+            Node<MailBoxItem> node = new Node<>(new MailBoxItem(message, sender));
+            if (first == null)
+                first = node;
+            else last.lazySetNext(node);
+            last = node;
+        }
+        if (first == null)
+            return;
+        Node<MailBoxItem> previous = TAIL.getAndSet(this, last);
+        previous.lazySetNext(first);
+    }
+
+    @Override
+    public MailBoxItem remove() {
+        Node<MailBoxItem> next = head.next;
+        if (next == null)
+            return null;
+
+        MailBoxItem item = next.item;
+        // The node becomes the new stub: it must not retain the message
+        next.item = null;
+        head = next;
+        return item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        // The tail, unlike the link to the next node, is published by a full fence: a producer
+        // that has added a node and then finds the actor scheduled is seen by the consumer that
+        // resets the flag and then checks the mailbox. A node not yet linked is seen as well,
+        // so the consumer is scheduled again until the link is published
+        return head == tail;
+    }
+
+    /**
+     * Node of the linked list.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    static final class Node<I> {
+
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        private I item;
+        private volatile Node<I> next;
+
+        Node(I item) {
+            this.item = item;
+        }
+
+        void lazySetNext(Node<I> node) {
+            NEXT.lazySet(this, node);
+        }
+    }
+}
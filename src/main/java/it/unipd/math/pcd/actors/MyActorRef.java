@@ -29,6 +29,8 @@
 
 package it.unipd.math.pcd.actors;
 
+import java.util.Collection;
+
 /**
  * Personal implementation of ActorRef.
  *
@@ -36,10 +38,21 @@ package it.unipd.math.pcd.actors;
  * @version 1.0
  * @since 1.0
  */
-public class MyActorRef<T extends Message> implements ActorRef<T> {
+public class MyActorRef<T extends Message> implements ActorRef<T>, Recipient<T> {
 
     private MyActorSystem actorSystem;
 
+    /**
+     * Actor referenced, bound when the actor is created and invalidated when it is removed
+     * from the system. Sending through the binding skips the lookup in the actor system.
+     */
+    private volatile AbsActor<T> actor;
+
+    /**
+     * Identifier of the actor in the registry, kept after the binding is invalidated
+     */
+    private long id = ActorRegistry.NO_ID;
+
     /**
      * One-argument constructor definition.
      *
@@ -49,11 +62,81 @@ public class MyActorRef<T extends Message> implements ActorRef<T> {
         this.actorSystem = actorSystem;
     }
 
+    /**
+     * Binds the reference to the actor it references.
+     *
+     * @param actor The actor referenced
+     */
+    void bind(AbsActor<T> actor) {
+        this.id = actor.getId();
+        this.actor = actor;
+    }
+
+    /**
+     * Retrieves the identifier of the actor in the registry of its system.
+     *
+     * @return The identifier, or {@link ActorRegistry#NO_ID} if the reference has never been bound
+     */
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Invalidates the binding of the reference.
+     */
+    void unbind() {
+        this.actor = null;
+    }
+
     @Override
     public void send(T message, ActorRef to) {
-        AbsActor<T> actor = (AbsActor<T>) actorSystem.getActorByRef(to);
+        actorSystem.deliver(message, this, to);
+    }
+
+    @Override
+    public void send(T message, ActorRef to, int priority) {
+        actorSystem.deliver(message, this, to, priority);
+    }
+
+    @Override
+    public void sendAll(Collection<? extends T> messages, ActorRef to) {
+        actorSystem.deliverAll(messages, this, to);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender) {
         // storeMessage checks if the actor can receive new message
-        actor.storeMessage(message, this);
+        target().storeMessage(message, sender);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender, int priority) {
+        target().storeMessage(message, sender, priority);
+    }
+
+    @Override
+    public void deliverAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        target().storeMessages(messages, sender);
+    }
+
+    /**
+     * Retrieves the actor referenced, using the binding if it is still valid.
+     *
+     * @return The actor
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the actor does not exist
+     */
+    private AbsActor<T> target() {
+        AbsActor<T> bound = actor;
+        return bound != null ? bound : (AbsActor<T>) actorSystem.getActorByRef(this);
+    }
+
+    /**
+     * Hashes the reference to the index of the slot of its actor in the registry, so that a
+     * reference decorating this one is resolved without scanning the registry.
+     */
+    @Override
+    public int hashCode() {
+        return (int) id;
     }
 
     @Override
@@ -38,10 +38,59 @@ package it.unipd.math.pcd.actors;
  */
 public class MyActorSystem extends AbsActorSystem {
 
+    /**
+     * Creates an actor system that executes its actors on the default dispatcher.
+     */
+    public MyActorSystem() {
+        super();
+    }
+
+    /**
+     * One-argument constructor definition.
+     *
+     * @param dispatcher The dispatcher that executes the actors
+     */
+    public MyActorSystem(Dispatcher dispatcher) {
+        super(dispatcher);
+    }
+
+    @Override
+    protected void bindActorReference(ActorRef<?> reference, AbsActor<?> actor) {
+        if (reference instanceof MyActorRef)
+            ((MyActorRef) reference).bind(actor);
+        else if (reference instanceof RemoteActorRef) {
+            RemoteTransport transport = getRemoteTransport();
+            ((RemoteActorRef) reference).bind(actor,
+                    new ActorAddress(transport.getHost(), transport.getPort(), actor.getId()));
+        }
+    }
+
+    @Override
+    protected long getActorId(ActorRef<?> reference) {
+        if (reference instanceof MyActorRef)
+            return ((MyActorRef) reference).getId();
+        // The address of a local actor holds its identifier
+        if (reference instanceof RemoteActorRef && ((RemoteActorRef) reference).isLocal())
+            return ((RemoteActorRef) reference).getAddress().getId();
+        // A decorated reference delegates its hash code to the reference it decorates
+        return super.getActorId(reference);
+    }
+
+    @Override
+    protected void unbindActorReference(ActorRef<?> reference) {
+        if (reference instanceof MyActorRef)
+            ((MyActorRef) reference).unbind();
+        else if (reference instanceof RemoteActorRef)
+            ((RemoteActorRef) reference).unbind();
+    }
+
     @Override
     protected ActorRef createActorReference(ActorMode mode) {
         if (mode.equals(ActorMode.LOCAL))
             return new MyActorRef(this);
+        // Remote actors are reachable only once the system listens
+        else if (isListening())
+            return new RemoteActorRef(this, null, true);
         else throw new IllegalArgumentException();
     }
 }
@@ -0,0 +1,67 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+/**
+ * Defines what happens when a message is sent to an actor whose
+ * {@link BoundedMailBox bounded mailbox} is full.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The sender waits until there is room for the message.
+     */
+    BLOCK,
+
+    /**
+     * The sender waits until there is room for the message, dropping it if the timeout expires.
+     */
+    BLOCK_WITH_TIMEOUT,
+
+    /**
+     * The new message is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest message in the mailbox is dropped to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new message is dropped and a
+     * {@link it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException} is thrown to the sender.
+     */
+    FAIL
+}
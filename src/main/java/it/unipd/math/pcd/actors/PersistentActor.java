@@ -0,0 +1,225 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.persistence.Journal;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * An actor whose state is rebuilt from the events it has persisted in a {@link Journal}. The
+ * actor handles its messages as commands, persisting the events that change its state, and
+ * applies every event once it is durable; when the actor is created again with the same
+ * persistence identifier, e.g. after a restart, its events are replayed before it receives any
+ * message.
+ * <p/>
+ * While an event is being persisted, the messages received are put aside, and handled once all
+ * the events persisted before have been applied, so that commands always see the state of the
+ * events that precede them. A stopped actor terminates only once its events have been applied
+ * and the messages put aside have been handled. The journal and the persistence identifier
+ * are given by {@link ActorConfig#withPersistence(Journal, String)}.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class PersistentActor<T extends Message> extends AbsActor<T> {
+
+    private Journal journal;
+    private String persistenceId;
+    private long lastSequenceNr;
+
+    // Accessed only while handling a message, as the rest of the state of the actor
+    private final Queue<Persisting> persisting = new ArrayDeque<>();
+    private final Queue<Persisting> stash = new ArrayDeque<>();
+
+    /**
+     * Handles a message that is not an event, possibly persisting events.
+     *
+     * @param message The message
+     */
+    protected abstract void receiveCommand(T message);
+
+    /**
+     * Changes the state of the actor according to an event, both when the event has been
+     * persisted and when it is replayed.
+     *
+     * @param event The event
+     */
+    protected abstract void applyEvent(Message event);
+
+    /**
+     * Handles an event that could not be persisted. The event is not applied. By default the
+     * failure is ignored.
+     *
+     * @param event The event
+     * @param cause The cause of the failure
+     */
+    protected void onPersistFailure(Message event, Throwable cause) {
+    }
+
+    /**
+     * Retrieves the identifier of the events of the actor in the journal.
+     *
+     * @return The persistence identifier
+     */
+    public final String getPersistenceId() {
+        return persistenceId;
+    }
+
+    /**
+     * Retrieves the number of events persisted by the actor, including the replayed ones.
+     *
+     * @return The sequence number of the last event
+     */
+    public final long getLastSequenceNr() {
+        return lastSequenceNr;
+    }
+
+    /**
+     * Replays the events of the actor. Called by the actor system before the actor is published.
+     *
+     * @param journal The journal of the events
+     * @param persistenceId The identifier of the events of the actor
+     */
+    final void recover(Journal journal, String persistenceId) {
+        if (journal == null)
+            throw new IllegalArgumentException("A persistent actor needs a journal: see ActorConfig.withPersistence");
+        this.journal = journal;
+        this.persistenceId = persistenceId;
+        this.lastSequenceNr = journal.replay(persistenceId, new Consumer<Message>() {
+            @Override
+            public void accept(Message event) {
+                applyEvent(event);
+            }
+        });
+    }
+
+    /**
+     * Persists an event, applying it once it is durable.
+     *
+     * @param event The event
+     */
+    protected final void persist(Message event) {
+        persist(event, null);
+    }
+
+    /**
+     * Persists an event, applying it and then running {@code handler} once it is durable. The
+     * handler sees the sender of the message that persisted the event.
+     *
+     * @param event The event
+     * @param handler Runs after the event has been applied, e.g. to reply to the sender
+     */
+    protected final void persist(Message event, Runnable handler) {
+        final Persisting entry = new Persisting(event, handler, sender);
+        journal.append(persistenceId, lastSequenceNr + 1, event).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void result, Throwable failure) {
+                entry.failure = failure;
+                entry.completed = true;
+                // Bypasses the mailbox, which could drop or block the notification
+                signal();
+            }
+        });
+        lastSequenceNr++;
+        persisting.add(entry);
+    }
+
+    @Override
+    public final void receive(T message) {
+        if (!persisting.isEmpty()) {
+            stash.add(new Persisting(message, null, sender));
+        } else {
+            receiveCommand(message);
+        }
+    }
+
+    /**
+     * Applies the events persisted, in the order they have been persisted, and then handles the
+     * messages put aside as long as no event is being persisted. A failure is reported to the
+     * listeners and does not stop the following events and messages.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    final void handleSignal() {
+        Persisting done;
+        while ((done = persisting.peek()) != null && done.completed) {
+            persisting.poll();
+            sender = done.sender;
+            try {
+                if (done.failure != null) {
+                    onPersistFailure(done.message, done.failure);
+                } else {
+                    applyEvent(done.message);
+                    if (done.handler != null)
+                        done.handler.run();
+                }
+            } catch (RuntimeException e) {
+                reportFailure(done.message, e);
+            }
+        }
+        while (persisting.isEmpty() && !stash.isEmpty()) {
+            Persisting next = stash.poll();
+            sender = next.sender;
+            try {
+                receiveCommand((T) next.message);
+            } catch (RuntimeException e) {
+                reportFailure(next.message, e);
+            }
+        }
+    }
+
+    @Override
+    final boolean hasPendingWork() {
+        return !persisting.isEmpty() || !stash.isEmpty();
+    }
+
+    /**
+     * An event being persisted, or a message put aside.
+     */
+    private final class Persisting {
+        private final Message message;
+        private final Runnable handler;
+        private final ActorRef<T> sender;
+        // Written by the journal before the volatile write that completes the event
+        private Throwable failure;
+        private volatile boolean completed;
+
+        Persisting(Message message, Runnable handler, ActorRef<T> sender) {
+            this.message = message;
+            this.handler = handler;
+            this.sender = sender;
+        }
+    }
+}
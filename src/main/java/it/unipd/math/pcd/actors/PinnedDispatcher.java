@@ -0,0 +1,142 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispatcher that executes its actors on a dedicated thread, shared with no other work. It is
+ * meant for a handful of latency-critical actors: while idle, the thread waits according to an
+ * {@link IdleStrategy}, e.g. busy spinning to react to a message within microseconds.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see ActorConfig#withPinnedDispatcher(IdleStrategy)
+ */
+public class PinnedDispatcher extends AbsDispatcher {
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final IdleStrategy idleStrategy;
+    private final Thread thread;
+
+    // True while the thread may be parked by the idle strategy
+    private volatile boolean idle;
+    private volatile boolean shutdown;
+
+    /**
+     * One-argument constructor definition.
+     *
+     * @param idleStrategy How the thread waits for actors to execute
+     */
+    public PinnedDispatcher(IdleStrategy idleStrategy) {
+        this(idleStrategy, DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Four-arguments constructor definition.
+     *
+     * @param idleStrategy How the thread waits for actors to execute
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    public PinnedDispatcher(IdleStrategy idleStrategy, int throughput, long deadline, TimeUnit unit) {
+        super(throughput, deadline, unit);
+        if (idleStrategy == null)
+            throw new IllegalArgumentException("The idle strategy can not be null");
+        this.idleStrategy = idleStrategy;
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "pcd-actors-pinned-" + threadNumber.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        if (shutdown)
+            throw new IllegalStateException("The dispatcher has been shut down");
+        tasks.offer(task);
+        if (idle)
+            LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(thread);
+    }
+
+    private void runLoop() {
+        int attempts = 0;
+        for (;;) {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException | Error e) {
+                    // The thread is not replaced, as a pool would do: it survives a failed actor
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+                attempts = 0;
+            } else if (shutdown) {
+                return;
+            } else if (idleStrategy.parks()) {
+                // Published before checking the queue again, so that a sender either sees the
+                // flag and unparks the thread, or its task is seen here
+                idle = true;
+                if (tasks.isEmpty() && !shutdown)
+                    idleStrategy.idle(attempts++);
+                idle = false;
+            } else {
+                idleStrategy.idle(attempts++);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the thread that executes the actors.
+     *
+     * @return The dedicated thread
+     */
+    public Thread getThread() {
+        return thread;
+    }
+}
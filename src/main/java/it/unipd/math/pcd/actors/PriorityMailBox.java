@@ -0,0 +1,146 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+/**
+ * Mailbox with a fixed number of priority levels, each one backed by its own
+ * {@link MpscMailBox lock-free queue}. Messages are FIFO within a level and a message is
+ * removed only when all the levels of higher priority are empty. Adding a message costs
+ * the same as adding it to a {@link MpscMailBox}: there is no heap and no comparison.
+ * <p/>
+ * The priority of a message is the one given explicitly to
+ * {@link ActorRef#send(Message, ActorRef, int)}, or the one of a {@link PriorityMessage},
+ * or else the default priority of the mailbox. The highest priority is 0, priorities out of
+ * range are clamped to the nearest level.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class PriorityMailBox<T extends Message> extends MailBox<T> {
+
+    private final MailBox<T>[] levels;
+    private final int defaultPriority;
+
+    /**
+     * Creates a mailbox whose default priority is the lowest one.
+     *
+     * @param levels Number of priority levels
+     */
+    public PriorityMailBox(int levels) {
+        this(levels, levels - 1);
+    }
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param levels Number of priority levels
+     * @param defaultPriority Priority of messages that do not define one
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityMailBox(int levels, int defaultPriority) {
+        checkArguments(levels, defaultPriority);
+        this.levels = new MailBox[levels];
+        for (int i = 0; i < levels; i++)
+            this.levels[i] = new MpscMailBox<>();
+        this.defaultPriority = defaultPriority;
+    }
+
+    /**
+     * Checks the arguments of a priority mailbox, without creating its levels.
+     *
+     * @param levels Number of priority levels
+     * @param defaultPriority Priority of messages that do not define one
+     * @throws IllegalArgumentException If an argument is not valid
+     */
+    static void checkArguments(int levels, int defaultPriority) {
+        if (levels <= 0)
+            throw new IllegalArgumentException("There must be at least one priority level");
+        if (defaultPriority < 0 || defaultPriority >= levels)
+            throw new IllegalArgumentException("The default priority must be a valid level");
+    }
+
+    @Override
+    public void add(T message, ActorRef<T> sender) {
+        int priority = message instanceof PriorityMessage
+                ? ((PriorityMessage) message).getPriority()
+                : defaultPriority;
+        add(message, sender, priority);
+    }
+
+    @Override
+    public void add(T message, ActorRef<T> sender, int priority) {
+        levels[Math.min(Math.max(priority, 0), levels.length - 1)].add(message, sender);
+    }
+
+    @Override
+    public void add(MailBoxItem item) {
+        T message = item.getMessage();
+        int priority = message instanceof PriorityMessage
+                ? ((PriorityMessage) message).getPriority()
+                : defaultPriority;
+        levels[Math.min(Math.max(priority, 0), levels.length - 1)].add(item);
+    }
+
+    @Override
+    void setTimestamped(boolean timestamped) {
+        super.setTimestamped(timestamped);
+        for (MailBox<T> level : levels)
+            level.setTimestamped(timestamped);
+    }
+
+    @Override
+    public MailBoxItem remove() {
+        for (MailBox<T> level : levels) {
+            MailBoxItem item = level.remove();
+            if (item != null)
+                return item;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (MailBox<T> level : levels) {
+            if (!level.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the number of priority levels.
+     *
+     * @return The number of levels
+     */
+    public int getLevels() {
+        return levels.length;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Temporary reference that acts as the sender of a request made with
+ * {@link ActorSystem#ask(ActorRef, Message, long, java.util.concurrent.TimeUnit)}. The first
+ * message delivered to it completes the future of the request. It is not an actor: it has no
+ * mailbox and no thread, and it is never registered in the actor system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+class PromiseActorRef<T extends Message> implements ActorRef<T>, Recipient<T> {
+
+    private final AbsActorSystem actorSystem;
+    private final CompletableFuture<T> response = new CompletableFuture<>();
+
+    // Expiration of the request, cancelled by the response
+    private volatile Cancellable timeout;
+
+    /**
+     * One-argument constructor definition.
+     *
+     * @param actorSystem The actor system that delivers the request
+     */
+    PromiseActorRef(AbsActorSystem actorSystem) {
+        this.actorSystem = actorSystem;
+    }
+
+    /**
+     * Retrieves the future completed by the response.
+     *
+     * @return The response
+     */
+    CompletableFuture<T> getResponse() {
+        return response;
+    }
+
+    /**
+     * Sets the expiration of the request.
+     *
+     * @param timeout The task that expires the request
+     */
+    void setTimeout(Cancellable timeout) {
+        this.timeout = timeout;
+        // The response may have arrived before the expiration was set
+        if (response.isDone())
+            timeout.cancel();
+    }
+
+    /**
+     * Expires the request, unless it has already been completed.
+     */
+    void expire() {
+        response.completeExceptionally(new TimeoutException("No response received in time"));
+    }
+
+    @Override
+    public void send(T message, ActorRef to) {
+        actorSystem.deliver(message, this, to);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender) {
+        if (response.complete(message)) {
+            Cancellable expiration = timeout;
+            if (expiration != null)
+                expiration.cancel();
+        }
+    }
+
+    @Override
+    public int compareTo(ActorRef ref) {
+        return (this == ref) ? 0 : -1;
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.Collection;
+
+/**
+ * A reference that knows how to deliver the messages sent to it, without looking up an actor
+ * in the actor system. References that are not recipients, e.g. decorated references, are
+ * resolved through the actor system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public interface Recipient<T extends Message> {
+
+    /**
+     * Delivers a {@code message} sent to this reference.
+     *
+     * @param message The message
+     * @param sender The sender of the message
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the message can not be
+     *         delivered anymore
+     */
+    void deliver(T message, ActorRef<T> sender);
+
+    /**
+     * Delivers a {@code message} sent to this reference with an explicit priority. By default the
+     * priority is ignored.
+     *
+     * @param message The message
+     * @param sender The sender of the message
+     * @param priority The priority of the message, where 0 is the highest
+     */
+    default void deliver(T message, ActorRef<T> sender, int priority) {
+        deliver(message, sender);
+    }
+
+    /**
+     * Delivers a batch of messages sent to this reference, in order. By default they are
+     * delivered one at a time.
+     *
+     * @param messages The messages
+     * @param sender The sender of the messages
+     */
+    default void deliverAll(Collection<? extends T> messages, ActorRef<T> sender) {
+        for (T message : messages)
+            deliver(message, sender);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+/**
+ * Reference to an actor identified by an {@link ActorAddress}. If the address belongs to another
+ * actor system, sending a message to the reference serializes it and ships it over the
+ * connection to that system; otherwise the message is delivered locally, as a
+ * {@link MyActorRef} would do.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+class RemoteActorRef<T extends Message> implements ActorRef<T>, Recipient<T> {
+
+    private final AbsActorSystem actorSystem;
+    // True if the address belongs to the system of the reference
+    private final boolean local;
+    private volatile ActorAddress address;
+
+    /**
+     * Local actor referenced, bound when the actor is created and invalidated when it is removed
+     */
+    private volatile AbsActor<T> actor;
+
+    /**
+     * Three-arguments constructor definition.
+     *
+     * @param actorSystem The actor system that delivers the messages
+     * @param address The address of the actor, or null for a local actor not bound yet
+     * @param local True if the address belongs to {@code actorSystem}
+     */
+    RemoteActorRef(AbsActorSystem actorSystem, ActorAddress address, boolean local) {
+        this.actorSystem = actorSystem;
+        this.address = address;
+        this.local = local;
+    }
+
+    /**
+     * Binds the reference to the local actor it references.
+     *
+     * @param actor The actor referenced
+     * @param address The address of the actor
+     */
+    void bind(AbsActor<T> actor, ActorAddress address) {
+        this.address = address;
+        this.actor = actor;
+    }
+
+    /**
+     * Invalidates the binding of the reference.
+     */
+    void unbind() {
+        this.actor = null;
+    }
+
+    /**
+     * Retrieves the address of the actor.
+     *
+     * @return The address
+     */
+    ActorAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Checks if the actor belongs to the system of the reference.
+     *
+     * @return true if the actor is local; false otherwise
+     */
+    boolean isLocal() {
+        return local;
+    }
+
+    @Override
+    public void send(T message, ActorRef to) {
+        actorSystem.deliver(message, this, to);
+    }
+
+    @Override
+    public void send(T message, ActorRef to, int priority) {
+        actorSystem.deliver(message, this, to, priority);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void deliver(T message, ActorRef<T> sender) {
+        if (local)
+            target().storeMessage(message, sender);
+        else actorSystem.getRemoteTransport().send(address, message, sender);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender, int priority) {
+        // The priority is not shipped to other systems
+        if (local)
+            target().storeMessage(message, sender, priority);
+        else deliver(message, sender);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AbsActor<T> target() {
+        AbsActor<T> bound = actor;
+        return bound != null ? bound : (AbsActor<T>) actorSystem.getActorByRef(this);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        // Two references to the same remote actor are equal
+        if (this == other)
+            return true;
+        if (!(other instanceof RemoteActorRef) || address == null)
+            return false;
+        return address.equals(((RemoteActorRef<?>) other).address);
+    }
+
+    @Override
+    public int hashCode() {
+        ActorAddress current = address;
+        return current != null ? current.hashCode() : System.identityHashCode(this);
+    }
+
+    @Override
+    public int compareTo(ActorRef ref) {
+        return equals(ref) ? 0 : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(address);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options of the connections of an actor system to the other ones. Instances are immutable:
+ * every {@code with} method returns a new configuration.
+ * <p/>
+ * By default the messages to the same peer are coalesced into batches, written with a single
+ * system call once a batch is full or once its first message has waited for the flush delay.
+ * Without batching every message is written as soon as possible, with its own system call.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see ActorSystem#listen(String, int, RemoteConfig)
+ */
+public final class RemoteConfig {
+
+    private static final RemoteConfig DEFAULT =
+            new RemoteConfig(64 * 1024, TimeUnit.MICROSECONDS.toNanos(100));
+
+    private final int maxBatchBytes;
+    private final long flushDelayNanos;
+
+    private RemoteConfig(int maxBatchBytes, long flushDelayNanos) {
+        this.maxBatchBytes = maxBatchBytes;
+        this.flushDelayNanos = flushDelayNanos;
+    }
+
+    /**
+     * Retrieves the configuration that coalesces up to 64 KB of messages, for up to 100
+     * microseconds.
+     *
+     * @return The default configuration
+     */
+    public static RemoteConfig defaults() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a copy of this configuration that coalesces the messages to the same peer.
+     *
+     * @param maxBatchBytes The size that flushes a batch at once
+     * @param flushDelay The longest time a message waits for its batch to be flushed
+     * @param unit Unit of the flush delay
+     * @return The new configuration
+     */
+    public RemoteConfig withBatching(int maxBatchBytes, long flushDelay, TimeUnit unit) {
+        if (maxBatchBytes <= 0 || flushDelay < 0)
+            throw new IllegalArgumentException("Invalid batches of " + maxBatchBytes + " bytes, flushed every "
+                    + flushDelay + " " + unit);
+        return new RemoteConfig(maxBatchBytes, unit.toNanos(flushDelay));
+    }
+
+    /**
+     * Creates a copy of this configuration that writes every message on its own.
+     *
+     * @return The new configuration
+     */
+    public RemoteConfig withoutBatching() {
+        return new RemoteConfig(0, 0);
+    }
+
+    /**
+     * Checks if the messages to the same peer are coalesced.
+     *
+     * @return true if the messages are batched; false otherwise
+     */
+    public boolean isBatching() {
+        return maxBatchBytes > 0;
+    }
+
+    /**
+     * Retrieves the size that flushes a batch at once.
+     *
+     * @return The size in bytes, or 0 if the messages are not batched
+     */
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    /**
+     * Retrieves the longest time a message waits for its batch to be flushed.
+     *
+     * @return The delay in nanoseconds
+     */
+    public long getFlushDelayNanos() {
+        return flushDelayNanos;
+    }
+}
@@ -0,0 +1,737 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.exceptions.SerializationException;
+import it.unipd.math.pcd.actors.serialization.BufferPool;
+import it.unipd.math.pcd.actors.serialization.Codecs;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Non-blocking TCP transport that ships messages between actor systems. A single thread runs a
+ * selector over the listening socket and over one connection per peer system, shared by all the
+ * actors of both systems: a connection is dialed by the first message sent to a peer, and it is
+ * announced to the peer with a handshake, so that the peer uses it for its messages as well.
+ * <p/>
+ * Every message travels in a record: its length, the kind of record, the identifier of the
+ * receiver in the peer, the sender and the message, written by the {@link SerializerRegistry} of
+ * the system into a pooled direct buffer. Senders are sent as identifiers of actors of the
+ * sending system, or as full addresses of actors of third systems. Messages are delivered at
+ * most once: the records of a connection that fails are lost.
+ * <p/>
+ * Unless batching is disabled by the {@link RemoteConfig}, the records to the same peer are
+ * coalesced into batch frames, flushed when they are full or when their first record has waited
+ * for the flush delay, and written with a single gathering write. The records of a batch are
+ * then added to the mailboxes of their receivers at once, scheduling every receiver only once.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+final class RemoteTransport {
+
+    private static final AtomicInteger transportNumber = new AtomicInteger();
+
+    private static final byte HANDSHAKE = 0;
+    private static final byte MESSAGE = 1;
+    private static final byte BATCH = 2;
+
+    private static final byte NO_SENDER = 0;
+    private static final byte PEER_SENDER = 1;
+    private static final byte ADDRESS_SENDER = 2;
+
+    private static final int MAX_FRAME = 16 * 1024 * 1024;
+    // Length of a message, so that it fits in a batch after the kind of the batch
+    private static final int MAX_MESSAGE = MAX_FRAME - 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FRAME_SIZE = 4 * 1024;
+    // Buffers written by a single system call
+    private static final int MAX_GATHER = 1024;
+
+    private final AbsActorSystem system;
+    private final RemoteConfig config;
+    private final SerializerRegistry serializers;
+    // Buffers of the outbound frames, released once written to the socket
+    private final BufferPool frames = new BufferPool(FRAME_SIZE, 1024);
+    private final String host;
+    private final int port;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // Connections whose batch waits for its deadline, in order of deadline since the delay is fixed
+    private final Queue<Connection> delayed = new ArrayDeque<>();
+
+    // Messages of the inbound batch being read, by identifier of their receiver
+    private final Map<Long, Deliveries> deliveries = new LinkedHashMap<>();
+
+    // Connections by address of the peer system
+    private final ConcurrentMap<String, Connection> connections = new ConcurrentHashMap<>();
+
+    // Temporary senders, e.g. the ones of ask, reachable from the peers until they are answered
+    private final ConcurrentMap<Long, Recipient<Message>> temporaries = new ConcurrentHashMap<>();
+    private final AtomicLong temporaryIds = new AtomicLong(ActorRegistry.NO_ID);
+
+    /**
+     * Opens the listening socket and starts the thread of the transport.
+     *
+     * @param system The actor system of the transport
+     * @param host The host to listen on
+     * @param port The port to listen on, or 0 for any free port
+     * @param config The options of the connections
+     * @throws IOException If the socket can not be opened
+     */
+    RemoteTransport(AbsActorSystem system, String host, int port, RemoteConfig config) throws IOException {
+        this.system = system;
+        this.config = config;
+        this.serializers = system.serializers();
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        try {
+            server.configureBlocking(false);
+            server.bind(new InetSocketAddress(host, port));
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        this.host = host;
+        this.port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runSelector();
+            }
+        }, "pcd-actors-remote-" + transportNumber.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Retrieves the host the transport listens on.
+     *
+     * @return The host
+     */
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * Retrieves the port the transport listens on.
+     *
+     * @return The port
+     */
+    int getPort() {
+        return port;
+    }
+
+    /**
+     * Checks if an address belongs to the actor system of the transport.
+     *
+     * @param address The address
+     * @return true if the address is local; false otherwise
+     */
+    boolean isLocal(ActorAddress address) {
+        return address.getPort() == port && address.getHost().equals(host);
+    }
+
+    /**
+     * Ships a message to an actor of another system.
+     *
+     * @param to The address of the receiver
+     * @param message The message
+     * @param sender The sender of the message, possibly null
+     * @throws SerializationException If the message can not be serialized
+     */
+    void send(ActorAddress to, Message message, ActorRef<?> sender) {
+        if (closed)
+            throw new IllegalStateException("The remote transport has been closed");
+        ActorAddress senderAddress = null;
+        long senderId = ActorRegistry.NO_ID;
+        byte senderKind = NO_SENDER;
+        if (sender instanceof RemoteActorRef && !((RemoteActorRef<?>) sender).isLocal()) {
+            senderAddress = ((RemoteActorRef<?>) sender).getAddress();
+            senderKind = ADDRESS_SENDER;
+            senderId = senderAddress.getId();
+        } else if (sender != null) {
+            senderId = exportId(sender);
+            if (senderId != ActorRegistry.NO_ID)
+                senderKind = PEER_SENDER;
+        }
+
+        ByteBuffer frame = frames.acquire();
+        for (;;) {
+            try {
+                frame.putInt(0).put(MESSAGE).putLong(to.getId()).put(senderKind).putLong(senderId);
+                if (senderAddress != null) {
+                    Codecs.putString(frame, senderAddress.getHost());
+                    frame.putInt(senderAddress.getPort());
+                }
+                serializers.serialize(message, frame);
+                break;
+            } catch (BufferOverflowException e) {
+                // Rare large messages are written again into a larger buffer, which is not pooled
+                frames.release(frame);
+                if (frame.capacity() >= 4 + MAX_MESSAGE)
+                    throw new SerializationException("The message exceeds " + MAX_MESSAGE + " bytes: " + message);
+                frame = ByteBuffer.allocateDirect(Math.min(frame.capacity() * 2, 4 + MAX_MESSAGE));
+            } catch (RuntimeException e) {
+                frames.release(frame);
+                throw e;
+            }
+        }
+        frame.putInt(0, frame.position() - 4);
+        frame.flip();
+        connectionTo(to.getHost(), to.getPort()).write(frame);
+    }
+
+    /**
+     * Retrieves the identifier the peers use to reach a sender of this system.
+     *
+     * @return The identifier, or {@link ActorRegistry#NO_ID} if the sender can not be reached
+     */
+    @SuppressWarnings("unchecked")
+    private long exportId(ActorRef<?> sender) {
+        if (sender instanceof PromiseActorRef) {
+            final long id = temporaryIds.decrementAndGet();
+            PromiseActorRef<Message> promise = (PromiseActorRef<Message>) sender;
+            temporaries.put(id, promise);
+            // Unreachable once answered or expired
+            promise.getResponse().whenComplete(new BiConsumer<Message, Throwable>() {
+                @Override
+                public void accept(Message response, Throwable failure) {
+                    temporaries.remove(id);
+                }
+            });
+            return id;
+        }
+        return system.exportId(sender);
+    }
+
+    private Connection connectionTo(String peerHost, int peerPort) {
+        String key = peerHost + ":" + peerPort;
+        Connection connection = connections.get(key);
+        if (connection != null)
+            return connection;
+        final Connection created = new Connection(key, peerHost, peerPort);
+        // The peer learns the address of this system, to send its messages on the same connection
+        ByteBuffer handshake = ByteBuffer.allocateDirect(16 + 3 * host.length());
+        handshake.putInt(0).put(HANDSHAKE);
+        Codecs.putString(handshake, host);
+        handshake.putInt(port);
+        handshake.putInt(0, handshake.position() - 4);
+        handshake.flip();
+        created.write(handshake);
+        connection = connections.putIfAbsent(key, created);
+        if (connection != null)
+            return connection;
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                created.connect();
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Closes the listening socket and all the connections, and stops the thread of the transport.
+     */
+    void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void execute(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    private void runSelector() {
+        try {
+            while (!closed) {
+                select();
+                Runnable task;
+                while ((task = tasks.poll()) != null)
+                    task.run();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable())
+                            connection.finishConnect();
+                        if (key.isValid() && key.isReadable())
+                            connection.read();
+                        if (key.isValid() && key.isWritable())
+                            connection.flush();
+                    } catch (IOException | RuntimeException e) {
+                        connection.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+                flushExpiredBatches();
+            }
+        } catch (IOException e) {
+            // The selector is broken: the transport closes
+        } finally {
+            for (Connection connection : connections.values())
+                connection.close();
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection)
+                    ((Connection) key.attachment()).close();
+            }
+            closeQuietly(server);
+            closeQuietly(selector);
+        }
+    }
+
+    /**
+     * Waits for events on the sockets, or for the deadline of the next batch. Deadlines are
+     * microseconds away, shorter than the timeouts of the selector, so within the last
+     * millisecond before a deadline the thread polls the sockets once and then parks until the
+     * deadline: events arriving meanwhile wait at most as long as the batch does.
+     */
+    private void select() throws IOException {
+        Connection next = delayed.peek();
+        if (next == null) {
+            selector.select();
+            return;
+        }
+        long wait = next.flushDeadline - System.nanoTime();
+        if (wait >= TimeUnit.MILLISECONDS.toNanos(1)) {
+            selector.select(TimeUnit.NANOSECONDS.toMillis(wait));
+        } else if (selector.selectNow() == 0 && wait > 0 && tasks.isEmpty()) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private void flushExpiredBatches() {
+        long now = System.nanoTime();
+        Connection connection;
+        while ((connection = delayed.peek()) != null && connection.flushDeadline - now <= 0) {
+            delayed.poll();
+            connection.delayed = false;
+            connection.flushQuietly();
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = server.accept();
+            if (channel == null)
+                return;
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            // The peer is known once its handshake has been read
+            Connection connection = new Connection(null, null, 0);
+            connection.channel = channel;
+            connection.connected = true;
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            // A failure of a single connection, e.g. too many open files or a connection reset
+            // before it has been accepted, leaves the server and the other connections open
+            if (channel != null)
+                closeQuietly(channel);
+        }
+    }
+
+    private void receive(Connection connection, ByteBuffer frame) {
+        byte kind = frame.get();
+        if (kind != BATCH) {
+            receive(connection, kind, frame, false);
+            return;
+        }
+        int limit = frame.limit();
+        try {
+            while (frame.position() < limit) {
+                int length = frame.getInt();
+                int end = frame.position() + length;
+                if (length <= 0 || end > limit)
+                    throw new SerializationException("Invalid record of " + length + " bytes");
+                frame.limit(end);
+                receive(connection, frame.get(), frame, true);
+                frame.limit(limit);
+                frame.position(end);
+            }
+            deliverBatch();
+        } finally {
+            // A batch that can not be read closes its connection: the messages staged so far
+            // must not be delivered along with the next batch of another connection
+            deliveries.clear();
+        }
+    }
+
+    /**
+     * Reads a record, delivering its message at once, or staging it with the other messages of
+     * the same batch.
+     */
+    @SuppressWarnings("unchecked")
+    private void receive(Connection connection, byte kind, ByteBuffer record, boolean batched) {
+        if (kind == HANDSHAKE) {
+            connection.peerHost = Codecs.getString(record);
+            connection.peerPort = record.getInt();
+            connection.peer = connection.peerHost + ":" + connection.peerPort;
+            // Unless this system has already dialed the peer, the connection is shared
+            connections.putIfAbsent(connection.peer, connection);
+            return;
+        }
+
+        long targetId = record.getLong();
+        byte senderKind = record.get();
+        long senderId = record.getLong();
+        ActorRef<?> sender = null;
+        if (senderKind == PEER_SENDER && connection.peerHost != null) {
+            sender = connection.peerSender(senderId);
+        } else if (senderKind == ADDRESS_SENDER) {
+            String senderHost = Codecs.getString(record);
+            sender = system.actorFor(new ActorAddress(senderHost, record.getInt(), senderId));
+        }
+
+        Message message;
+        try {
+            message = serializers.deserialize(record);
+        } catch (SerializationException e) {
+            // A message of a class unknown to this system is dropped
+            return;
+        }
+
+        if (targetId < ActorRegistry.NO_ID) {
+            Recipient<Message> temporary = temporaries.get(targetId);
+            if (temporary != null)
+                temporary.deliver(message, (ActorRef<Message>) sender);
+        } else if (batched) {
+            Deliveries staged = deliveries.get(targetId);
+            if (staged == null) {
+                staged = new Deliveries();
+                deliveries.put(targetId, staged);
+            }
+            staged.messages.add(message);
+            staged.senders.add(sender);
+        } else {
+            try {
+                system.deliverLocal(targetId, message, sender);
+            } catch (NoSuchActorException e) {
+                // The receiver has been stopped: the message is lost, as if the connection had failed
+            } catch (MailBoxOverflowException e) {
+                // Thrown only by a mailbox that can not add without failing: the message is dropped
+            }
+        }
+    }
+
+    private void deliverBatch() {
+        for (Map.Entry<Long, Deliveries> staged : deliveries.entrySet()) {
+            try {
+                system.deliverLocal(staged.getKey(), staged.getValue().messages, staged.getValue().senders);
+            } catch (NoSuchActorException e) {
+                // The receiver has been stopped: the messages are lost, as if the connection had failed
+            } catch (MailBoxOverflowException e) {
+                // Thrown only by a mailbox that can not add without failing: the messages left
+                // are dropped, not the messages of the other receivers
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * Messages of an inbound batch to the same receiver, with their senders.
+     */
+    private static final class Deliveries {
+        private final List<Message> messages = new ArrayList<>();
+        private final List<ActorRef<?>> senders = new ArrayList<>();
+    }
+
+    /**
+     * Connection to a peer system. Records are queued by the senders, and written by the thread
+     * of the transport, which is the only one accessing the channel.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    final class Connection {
+
+        private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        // Bytes of the queued records
+        private final AtomicInteger queued = new AtomicInteger();
+        // True while a flush has been requested to the thread of the transport, or, when
+        // batching, while a batch waits for its deadline
+        private final AtomicBoolean flushing = new AtomicBoolean();
+        private final Runnable flushTask = new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        };
+        private final Runnable delayTask = new Runnable() {
+            @Override
+            public void run() {
+                if (!delayed) {
+                    delayed = true;
+                    flushDeadline = System.nanoTime() + config.getFlushDelayNanos();
+                    RemoteTransport.this.delayed.offer(Connection.this);
+                }
+            }
+        };
+
+        // Buffers of the gathering write in progress, from the header of the batch
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER + 1];
+        private final ByteBuffer header = ByteBuffer.allocateDirect(5);
+        private int gathered;
+        private int written;
+        private int gatheredBytes;
+        private boolean delayed;
+        private long flushDeadline;
+
+        private ByteBuffer inbound = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private String peer;
+        private String peerHost;
+        private int peerPort;
+        private SocketChannel channel;
+        private SelectionKey key;
+        private boolean connected;
+
+        // Last sender read, since consecutive messages often have the same one
+        private long lastSenderId = ActorRegistry.NO_ID;
+        private ActorRef<?> lastSender;
+
+        Connection(String peer, String peerHost, int peerPort) {
+            this.peer = peer;
+            this.peerHost = peerHost;
+            this.peerPort = peerPort;
+        }
+
+        void write(ByteBuffer record) {
+            outbound.offer(record);
+            if (!config.isBatching()) {
+                if (flushing.compareAndSet(false, true))
+                    execute(flushTask);
+                return;
+            }
+            int size = record.remaining();
+            int bytes = queued.addAndGet(size);
+            int max = config.getMaxBatchBytes();
+            if (bytes >= max && bytes - size < max)
+                // The batch is full
+                execute(flushTask);
+            else if (flushing.compareAndSet(false, true))
+                // The first record of the batch sets its deadline
+                execute(delayTask);
+        }
+
+        ActorRef<?> peerSender(long senderId) {
+            if (senderId != lastSenderId || lastSender == null) {
+                lastSender = system.actorFor(new ActorAddress(peerHost, peerPort, senderId));
+                lastSenderId = senderId;
+            }
+            return lastSender;
+        }
+
+        void connect() {
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+                if (channel.connect(new InetSocketAddress(peerHost, peerPort)))
+                    finishConnect();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void finishConnect() throws IOException {
+            if (!channel.finishConnect())
+                return;
+            connected = true;
+            key.interestOps(SelectionKey.OP_READ);
+            flush();
+        }
+
+        void flushQuietly() {
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                close();
+            }
+        }
+
+        void flush() throws IOException {
+            if (!connected || !key.isValid())
+                return;
+            for (;;) {
+                if (gathered == 0 && !gather()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                    flushing.set(false);
+                    // A record queued after the last poll, but before the reset of the flag
+                    if (outbound.isEmpty() || !flushing.compareAndSet(false, true))
+                        return;
+                    continue;
+                }
+                channel.write(gather, written, gathered - written);
+                while (written < gathered && !gather[written].hasRemaining())
+                    written++;
+                if (written < gathered) {
+                    // The socket is full: the flush goes on when it is writable again
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                for (int i = 0; i < gathered; i++) {
+                    if (gather[i] != header)
+                        frames.release(gather[i]);
+                    gather[i] = null;
+                }
+                queued.addAndGet(-gatheredBytes);
+                gathered = 0;
+                written = 0;
+            }
+        }
+
+        /**
+         * Takes the queued records to write, within a batch if batching.
+         *
+         * @return false if there are no records to write
+         */
+        private boolean gather() {
+            boolean batching = config.isBatching();
+            int first = batching ? 1 : 0;
+            int limit = batching ? MAX_GATHER : 1;
+            int count = first;
+            int bytes = 0;
+            ByteBuffer record;
+            while (count - first < limit && (bytes < config.getMaxBatchBytes() || count == first)
+                    && (record = outbound.peek()) != null) {
+                // A batch never exceeds the largest frame the peer accepts, its kind included. A
+                // single message always fits, since its length is at most MAX_MESSAGE
+                if (count > first && 1 + bytes + record.remaining() > MAX_FRAME)
+                    break;
+                gather[count++] = outbound.poll();
+                bytes += record.remaining();
+            }
+            if (count == first)
+                return false;
+            if (batching) {
+                header.clear();
+                header.putInt(bytes + 1).put(BATCH);
+                header.flip();
+                gather[0] = header;
+            }
+            gathered = count;
+            gatheredBytes = bytes;
+            return true;
+        }
+
+        void read() throws IOException {
+            if (channel.read(inbound) < 0) {
+                close();
+                return;
+            }
+            inbound.flip();
+            while (inbound.remaining() >= 4) {
+                int length = inbound.getInt(inbound.position());
+                if (length <= 0 || length > MAX_FRAME)
+                    throw new IOException("Invalid frame of " + length + " bytes");
+                if (inbound.remaining() < 4 + length) {
+                    if (inbound.capacity() < 4 + length) {
+                        // The frame does not fit in the buffer
+                        ByteBuffer larger = ByteBuffer.allocateDirect(4 + length);
+                        larger.put(inbound);
+                        inbound = larger;
+                        return;
+                    }
+                    break;
+                }
+                int end = inbound.position() + 4 + length;
+                inbound.position(inbound.position() + 4);
+                ByteBuffer frame = inbound.slice();
+                frame.limit(length);
+                receive(this, frame);
+                inbound.position(end);
+            }
+            inbound.compact();
+        }
+
+        void close() {
+            if (peer != null)
+                connections.remove(peer, this);
+            outbound.clear();
+            queued.set(0);
+            if (key != null)
+                key.cancel();
+            if (channel != null)
+                closeQuietly(channel);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded mailbox backed by a preallocated ring of slots, whose size is a power of two
+ * not smaller than two. A
+ * sender claims a slot with a compare-and-set on the tail sequence, writes the message and the
+ * sender in place and publishes the slot by advancing its sequence; the consumer reads the
+ * slot, clears it and hands it back to the senders by advancing its sequence by a lap.
+ * <p/>
+ * In the steady state adding and removing messages allocate nothing: the consumer receives a
+ * single reusable {@link MailBoxItem}, valid only until the next remove. Removing messages on
+ * the sender side is not possible, so the {@link OverflowPolicy#DROP_OLDEST} policy is not
+ * supported.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class RingMailBox<T extends Message> extends MailBox<T> {
+
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final int mask;
+    private final Object[] messages;
+    private final Object[] senders;
+    private final long[] enqueuedAt;
+    // Sequence expected in each slot: position for a free slot, position + 1 for a published one
+    private final AtomicLongArray sequences;
+
+    // Next position claimed by the senders
+    private final AtomicLong tail = new AtomicLong();
+    // Next position read, only accessed by the consumer
+    private long head;
+
+    private final MailBoxItem item = new MailBoxItem(null, null);
+    private final LongAdder dropped = new LongAdder();
+
+    private final OverflowPolicy policy;
+    private final long timeout;
+
+    /**
+     * Creates a ring whose senders wait until there is room for their messages.
+     *
+     * @param capacity Number of slots, rounded up to the next power of two
+     */
+    public RingMailBox(int capacity) {
+        this(capacity, OverflowPolicy.BLOCK, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Four-arguments constructor definition.
+     *
+     * @param capacity Number of slots, rounded up to the next power of two
+     * @param policy Policy applied when the ring is full
+     * @param timeout Maximum time a sender waits using the {@code BLOCK_WITH_TIMEOUT} policy
+     * @param unit Unit of the timeout
+     */
+    public RingMailBox(int capacity, OverflowPolicy policy, long timeout, TimeUnit unit) {
+        checkArguments(capacity, policy, unit);
+        // A published slot of a ring of one slot would look free for the next lap
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.messages = new Object[size];
+        this.senders = new Object[size];
+        this.enqueuedAt = new long[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        this.policy = policy;
+        this.timeout = unit.toNanos(timeout);
+    }
+
+    /**
+     * Checks the arguments of a ring, without allocating it.
+     *
+     * @param capacity Number of slots
+     * @param policy Policy applied when the ring is full
+     * @param unit Unit of the timeout
+     * @throws IllegalArgumentException If an argument is not valid
+     */
+    static void checkArguments(int capacity, OverflowPolicy policy, TimeUnit unit) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+        if (policy == null || policy == OverflowPolicy.DROP_OLDEST)
+            throw new IllegalArgumentException("Unsupported overflow policy " + policy);
+        if (unit == null)
+            throw new IllegalArgumentException("The unit of the timeout can not be null");
+    }
+
+    @Override
+    public void add(T message, ActorRef<T> sender) {
+        long position = claim();
+        if (position >= 0)
+            publish(position, message, sender, timestamp());
+    }
+
+    @Override
+    void offer(T message, ActorRef<T> sender) {
+        long position = claim(1);
+        if (position >= 0)
+            publish(position, message, sender, timestamp());
+        else dropped.increment();
+    }
+
+    @Override
+    public void addAll(Collection<? extends T> added, ActorRef<T> sender) {
+        addAll(added, sender, true);
+    }
+
+    @Override
+    void offerAll(Collection<? extends T> added, ActorRef<T> sender) {
+        addAll(added, sender, false);
+    }
+
+    /**
+     * Adds a batch of messages, possibly applying the overflow policy.
+     *
+     * @param added Messages received
+     * @param sender Sender of the messages
+     * @param wait true to apply the overflow policy to the messages that do not fit; false to
+     *             drop them without waiting
+     */
+    @SuppressWarnings("unchecked")
+    private void addAll(Collection<? extends T> added, ActorRef<T> sender, boolean wait) {
+        // A snapshot, so that the number of slots claimed is the number of slots published
+        Object[] batch = added.toArray();
+        int offset = 0;
+        while (offset < batch.length) {
+            int length = Math.min(batch.length - offset, mask + 1);
+            long position = claim(length);
+            if (position < 0) {
+                // Not enough room for the whole batch: the policy is applied to each message
+                if (wait)
+                    add((T) batch[offset++], sender);
+                else offer((T) batch[offset++], sender);
+                continue;
+            }
+            long now = timestamp();
+            for (int i = 0; i < length; i++)
+                publish(position + i, batch[offset + i], sender, now);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes a message in a claimed slot, and publishes the slot to the consumer.
+     */
+    private void publish(long position, Object message, ActorRef<T> sender, long now) {
+        int index = (int) position & mask;
+        messages[index] = message;
+        senders[index] = sender;
+        enqueuedAt[index] = now;
+        sequences.lazySet(index, position + 1);
+    }
+
+    /**
+     * Claims {@code length} consecutive free slots at once, without waiting.
+     *
+     * @param length Number of slots, not greater than the capacity
+     * @return The position of the first slot claimed, or -1 if there is not enough room
+     */
+    private long claim(int length) {
+        long position = tail.get();
+        for (;;) {
+            // Slots are released in order, so if the last one is free all of them are
+            long last = position + length - 1;
+            long difference = sequences.get((int) last & mask) - last;
+            if (difference == 0 && tail.compareAndSet(position, position + length))
+                return position;
+            if (difference < 0)
+                return -1;
+            position = tail.get();
+        }
+    }
+
+    /**
+     * Claims the next free slot, applying the overflow policy if the ring is full.
+     *
+     * @return The position claimed, or -1 if the message has been dropped
+     */
+    private long claim() {
+        long deadline = 0L;
+        int idle = 0;
+        long position = tail.get();
+        for (;;) {
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1))
+                    return position;
+                position = tail.get();
+            } else if (difference > 0) {
+                // Claimed by another sender in the meantime
+                position = tail.get();
+            } else {
+                // The consumer has not released the slot yet: the ring is full
+                switch (policy) {
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return -1;
+                    case FAIL:
+                        dropped.increment();
+                        throw new MailBoxOverflowException("Mailbox full, capacity " + (mask + 1));
+                    case BLOCK_WITH_TIMEOUT:
+                        if (deadline == 0L)
+                            deadline = System.nanoTime() + timeout;
+                        else if (System.nanoTime() - deadline >= 0) {
+                            dropped.increment();
+                            return -1;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                idle = backOff(idle);
+                position = tail.get();
+            }
+        }
+    }
+
+    private static int backOff(int idle) {
+        if (idle < SPINS) {
+            // Busy spin
+        } else if (idle < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1L << Math.min(idle - SPINS - YIELDS, 16)));
+        }
+        return idle + 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MailBoxItem remove() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1)
+            return null;
+
+        item.reset((T) messages[index], (ActorRef<T>) senders[index], enqueuedAt[index]);
+        messages[index] = null;
+        senders[index] = null;
+        // Hands the slot back to the senders for the next lap
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        // The tail, unlike the sequence of a slot, is advanced by a full fence: a sender that
+        // has claimed a slot and then finds the actor scheduled is seen by the consumer that
+        // resets the flag and then checks the mailbox. A slot claimed but not yet published is
+        // seen as well, so the consumer is scheduled again until the slot is published
+        return head == tail.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Retrieves the number of slots of the ring.
+     *
+     * @return The capacity of the mailbox
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reference that fronts a fixed pool of routees and forwards every message sent to it to one of
+ * them. The router is not an actor: routing happens on the thread of the sender, and the
+ * decisions use no locks, so the router never serializes its senders.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+class RouterActorRef<T extends Message> implements ActorRef<T>, Recipient<T> {
+
+    // Points of every routee on the ring of the consistent hashing
+    private static final int VIRTUAL_NODES = 64;
+
+    private final AbsActorSystem actorSystem;
+    private final RoutingStrategy strategy;
+    private final AbsActor<T>[] routees;
+
+    private final AtomicLong next = new AtomicLong();
+
+    // Ring of the consistent hashing: sorted hashes and the routee of each of them
+    private final int[] ringHashes;
+    private final int[] ringRoutees;
+
+    /**
+     * Three-arguments constructor definition.
+     *
+     * @param actorSystem The actor system of the routees
+     * @param strategy The strategy used to pick the routees
+     * @param routees The routees, at least one
+     */
+    RouterActorRef(AbsActorSystem actorSystem, RoutingStrategy strategy, AbsActor<T>[] routees) {
+        this.actorSystem = actorSystem;
+        this.strategy = strategy;
+        this.routees = routees;
+        if (strategy == RoutingStrategy.CONSISTENT_HASH) {
+            long[] points = new long[routees.length * VIRTUAL_NODES];
+            for (int i = 0; i < routees.length; i++) {
+                for (int node = 0; node < VIRTUAL_NODES; node++) {
+                    int hash = mix(i * VIRTUAL_NODES + node + 1);
+                    // Sorted by hash, ties broken by routee
+                    points[i * VIRTUAL_NODES + node] = ((long) hash << 32) | i;
+                }
+            }
+            Arrays.sort(points);
+            ringHashes = new int[points.length];
+            ringRoutees = new int[points.length];
+            for (int i = 0; i < points.length; i++) {
+                ringHashes[i] = (int) (points[i] >> 32);
+                ringRoutees[i] = (int) points[i];
+            }
+        } else {
+            ringHashes = null;
+            ringRoutees = null;
+        }
+    }
+
+    /**
+     * Retrieves the actors of the pool.
+     *
+     * @return The routees
+     */
+    AbsActor<T>[] getRoutees() {
+        return routees;
+    }
+
+    @Override
+    public void send(T message, ActorRef to) {
+        actorSystem.deliver(message, this, to);
+    }
+
+    @Override
+    public void send(T message, ActorRef to, int priority) {
+        actorSystem.deliver(message, this, to, priority);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender) {
+        select(message).storeMessage(message, sender);
+    }
+
+    @Override
+    public void deliver(T message, ActorRef<T> sender, int priority) {
+        select(message).storeMessage(message, sender, priority);
+    }
+
+    /**
+     * Picks the routee of a message.
+     *
+     * @param message The message
+     * @return The routee
+     */
+    AbsActor<T> select(T message) {
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return routees[(int) ((next.getAndIncrement() & Long.MAX_VALUE) % routees.length)];
+            case RANDOM:
+                return routees[ThreadLocalRandom.current().nextInt(routees.length)];
+            case SMALLEST_MAILBOX:
+                return smallestMailBox();
+            default:
+                return consistentHash(message);
+        }
+    }
+
+    private AbsActor<T> smallestMailBox() {
+        // Scans from a different routee every time, so that ties are spread over the pool
+        int start = (int) ((next.getAndIncrement() & Long.MAX_VALUE) % routees.length);
+        AbsActor<T> smallest = null;
+        long smallestDepth = Long.MAX_VALUE;
+        for (int i = 0; i < routees.length; i++) {
+            AbsActor<T> routee = routees[(start + i) % routees.length];
+            long depth = routee.getMailBoxDepth();
+            if (depth == 0)
+                return routee;
+            if (depth < smallestDepth) {
+                smallest = routee;
+                smallestDepth = depth;
+            }
+        }
+        return smallest;
+    }
+
+    private AbsActor<T> consistentHash(T message) {
+        Object key = message instanceof ConsistentHashable
+                ? ((ConsistentHashable) message).getConsistentHashKey() : message;
+        int hash = mix(key == null ? 0 : key.hashCode());
+        // The first point of the ring clockwise from the hash of the key
+        int index = Arrays.binarySearch(ringHashes, hash);
+        if (index < 0)
+            index = -index - 1;
+        else {
+            while (index > 0 && ringHashes[index - 1] == hash)
+                index--;
+        }
+        return routees[ringRoutees[index == ringHashes.length ? 0 : index]];
+    }
+
+    /**
+     * Spreads the bits of a hash code, using the finalizer of MurmurHash3.
+     */
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Stops all the routees.
+     *
+     * @return A future completed once all the routees have terminated
+     */
+    CompletableFuture<Void> stop() {
+        CompletableFuture<?>[] terminations = new CompletableFuture<?>[routees.length];
+        for (int i = 0; i < routees.length; i++) {
+            try {
+                routees[i].interrupt();
+            } catch (NoSuchActorException e) {
+                // Already stopping, its termination is awaited as well
+            }
+            terminations[i] = routees[i].getTermination();
+        }
+        return CompletableFuture.allOf(terminations);
+    }
+
+    @Override
+    public int compareTo(ActorRef ref) {
+        return (this == ref) ? 0 : -1;
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher that executes actors on a fixed-size pool of daemon threads. By default idle
+ * threads block until an actor is scheduled; an {@link IdleStrategy} lets them spin instead,
+ * trading CPU for wake-up latency.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class ThreadPoolDispatcher extends AbsDispatcher {
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates a dispatcher with a thread for each available processor.
+     */
+    public ThreadPoolDispatcher() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * One-argument constructor definition.
+     *
+     * @param threads Number of threads of the pool
+     */
+    public ThreadPoolDispatcher(int threads) {
+        this(threads, DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Two-arguments constructor definition.
+     *
+     * @param threads Number of threads of the pool
+     * @param idleStrategy How idle threads wait for actors to execute
+     */
+    public ThreadPoolDispatcher(int threads, IdleStrategy idleStrategy) {
+        this(threads, idleStrategy, DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Four-arguments constructor definition.
+     *
+     * @param threads Number of threads of the pool
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    public ThreadPoolDispatcher(int threads, int throughput, long deadline, TimeUnit unit) {
+        super(throughput, deadline, unit);
+        if (threads <= 0)
+            throw new IllegalArgumentException("The pool must have at least one thread");
+        this.executor = Executors.newFixedThreadPool(threads, new DispatcherThreadFactory());
+    }
+
+    /**
+     * Five-arguments constructor definition.
+     *
+     * @param threads Number of threads of the pool
+     * @param idleStrategy How idle threads wait for actors to execute
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    public ThreadPoolDispatcher(int threads, IdleStrategy idleStrategy, int throughput, long deadline, TimeUnit unit) {
+        super(throughput, deadline, unit);
+        if (threads <= 0)
+            throw new IllegalArgumentException("The pool must have at least one thread");
+        if (idleStrategy == null)
+            throw new IllegalArgumentException("The idle strategy can not be null");
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new IdleStrategyQueue(idleStrategy, threads), new DispatcherThreadFactory());
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates the daemon threads of the pool, so that idle actors never keep the JVM alive.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    static class DispatcherThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger poolNumber = new AtomicInteger();
+
+        private final String prefix = "pcd-actors-dispatcher-" + poolNumber.incrementAndGet() + "-";
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatcher that executes every scheduling of an actor on a new virtual thread. It is
+ * meant for actors that block in {@code receive}, e.g. on JDBC or file I/O: a blocked
+ * virtual thread releases its carrier thread, so blocking actors do not exhaust OS threads.
+ * <p/>
+ * Virtual threads are available from Java 21. On older runtimes the dispatcher falls back
+ * to a cached pool of platform threads.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class VirtualThreadDispatcher extends AbsDispatcher {
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    /**
+     * Default constructor definition.
+     */
+    public VirtualThreadDispatcher() {
+        this(DEFAULT_THROUGHPUT, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Three-arguments constructor definition.
+     *
+     * @param throughput Maximum number of messages processed by an actor in a scheduling turn
+     * @param deadline Maximum duration of a scheduling turn, or 0 for no limit
+     * @param unit Unit of the deadline
+     */
+    public VirtualThreadDispatcher(int throughput, long deadline, TimeUnit unit) {
+        super(throughput, deadline, unit);
+        ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual
+                ? virtualExecutor
+                : Executors.newCachedThreadPool(new ThreadPoolDispatcher.DispatcherThreadFactory());
+    }
+
+    @Override
+    public void dispatch(Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Checks if actors are really executed on virtual threads.
+     *
+     * @return true if the runtime supports virtual threads; false otherwise
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor}, that is not available
+     * when compiling for older releases.
+     *
+     * @return The executor, or null if the runtime does not support virtual threads
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime metrics of an actor. Senders only increment a striped counter, so tracking adds no
+ * contention to the send path; everything else is written by the consumer of the mailbox. With
+ * detailed metrics the senders also sample the depth of the mailbox, at the cost of reading the
+ * counters of the consumer.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ActorMetrics {
+
+    private final LongAdder enqueued = new LongAdder();
+    // Written only by the consumer
+    private final AtomicLong processed = new AtomicLong();
+    // Sampled by the consumer and, with detailed metrics, by the senders
+    private final AtomicLong peakDepth = new AtomicLong();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram receiveTime = new LatencyHistogram();
+
+    /**
+     * Records a message sent to the actor.
+     */
+    public void recordEnqueue() {
+        enqueued.increment();
+    }
+
+    /**
+     * Records a batch of messages sent to the actor.
+     *
+     * @param messages The number of messages
+     */
+    public void recordEnqueue(int messages) {
+        enqueued.add(messages);
+    }
+
+    /**
+     * Samples the depth of the mailbox, updating its peak. Called at the beginning of every
+     * scheduling turn and, if the actor has detailed metrics, after every enqueue.
+     *
+     * @param dropped The number of messages dropped by the mailbox so far
+     */
+    public void sampleDepth(long dropped) {
+        long depth = getDepth(dropped);
+        long peak;
+        while (depth > (peak = peakDepth.get()) && !peakDepth.compareAndSet(peak, depth)) {
+            // Retries until the peak is not lower than the sample
+        }
+    }
+
+    /**
+     * Records a processed message. Must be called by the consumer.
+     *
+     * @param waitNanos Time spent by the message in the mailbox, or a negative value if the
+     *                  mailbox does not record the time of the enqueues
+     * @param receiveNanos Time spent in {@code receive}
+     */
+    public void recordMessage(long waitNanos, long receiveNanos) {
+        processed.lazySet(processed.get() + 1);
+        if (waitNanos >= 0)
+            queueWait.record(waitNanos);
+        receiveTime.record(receiveNanos);
+    }
+
+    /**
+     * Retrieves the current number of messages in the mailbox.
+     *
+     * @param dropped The number of messages dropped by the mailbox so far
+     * @return The depth of the mailbox
+     */
+    public long getDepth(long dropped) {
+        return Math.max(0L, enqueued.sum() - dropped - processed.get());
+    }
+
+    /**
+     * Takes a snapshot of the metrics.
+     *
+     * @param dropped The number of messages dropped by the mailbox so far
+     * @return The snapshot
+     */
+    public MetricsSnapshot snapshot(long dropped) {
+        long processedCount = processed.get();
+        long depth = Math.max(0L, enqueued.sum() - dropped - processedCount);
+        return new MetricsSnapshot(depth, Math.max(depth, peakDepth.get()), processedCount, dropped,
+                queueWait.snapshot(), receiveTime.snapshot());
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds, with a bucket for each power of two. It is written by
+ * a single thread, the consumer of an actor's mailbox, so recording a value needs no atomic
+ * read-modify-write; it can be read by any thread.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    // Bucket i counts the values in [2^(i-1), 2^i), bucket 0 counts zeros
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private volatile long count;
+    private volatile long sum;
+    private volatile long max;
+
+    /**
+     * Records a value. Must be called by a single thread at a time.
+     *
+     * @param nanos The duration in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        int bucket = BUCKETS - Long.numberOfLeadingZeros(value);
+        bucket = Math.min(bucket, BUCKETS - 1);
+        buckets.lazySet(bucket, buckets.get(bucket) + 1);
+        sum = sum + value;
+        if (value > max)
+            max = value;
+        count = count + 1;
+    }
+
+    /**
+     * Takes a snapshot of the histogram.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] = buckets.get(i);
+        return new Snapshot(counts, count, sum, max);
+    }
+
+    /**
+     * Immutable view of a histogram.
+     *
+     * @author Nicola Dalla Costa
+     * @version 1.0
+     * @since 1.0
+     */
+    public static final class Snapshot {
+
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Retrieves the number of recorded values.
+         *
+         * @return The number of values
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Retrieves the mean of the recorded values.
+         *
+         * @return The mean in nanoseconds, or 0 if there are no values
+         */
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * Retrieves the maximum recorded value.
+         *
+         * @return The maximum in nanoseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Retrieves an upper bound of a percentile of the recorded values, accurate to a power of two.
+         *
+         * @param percentile The percentile, between 0 and 100
+         * @return The upper bound in nanoseconds, or 0 if there are no values
+         */
+        public long getPercentile(double percentile) {
+            long total = 0;
+            for (long bucket : buckets)
+                total += bucket;
+            if (total == 0)
+                return 0;
+
+            long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(rank, 1))
+                    return i == 0 ? 0 : Math.min(max, (1L << i) - 1);
+            }
+            return max;
+        }
+    }
+}
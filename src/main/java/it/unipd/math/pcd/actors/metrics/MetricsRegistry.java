@@ -0,0 +1,60 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.metrics;
+
+import it.unipd.math.pcd.actors.ActorRef;
+
+import java.util.Map;
+
+/**
+ * Gives access to the runtime metrics of the actors of a system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Takes a snapshot of the metrics of an actor.
+     *
+     * @param actor The reference to the actor
+     * @return The snapshot
+     * @throws it.unipd.math.pcd.actors.exceptions.NoSuchActorException If the actor does not exist
+     */
+    MetricsSnapshot snapshot(ActorRef<?> actor);
+
+    /**
+     * Takes a snapshot of the metrics of all the actors of the system.
+     *
+     * @return The snapshots, by reference to the actor
+     */
+    Map<ActorRef<?>, MetricsSnapshot> snapshot();
+}
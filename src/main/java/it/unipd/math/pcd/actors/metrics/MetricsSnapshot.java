@@ -0,0 +1,121 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.metrics;
+
+/**
+ * Immutable view of the metrics of an actor at a point in time.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class MetricsSnapshot {
+
+    private final long depth;
+    private final long peakDepth;
+    private final long processed;
+    private final long dropped;
+    private final LatencyHistogram.Snapshot queueWait;
+    private final LatencyHistogram.Snapshot receiveTime;
+
+    MetricsSnapshot(long depth, long peakDepth, long processed, long dropped,
+                    LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot receiveTime) {
+        this.depth = depth;
+        this.peakDepth = peakDepth;
+        this.processed = processed;
+        this.dropped = dropped;
+        this.queueWait = queueWait;
+        this.receiveTime = receiveTime;
+    }
+
+    /**
+     * Retrieves the number of messages in the mailbox.
+     *
+     * @return The depth of the mailbox
+     */
+    public long getDepth() {
+        return depth;
+    }
+
+    /**
+     * Retrieves the highest depth of the mailbox observed. The depth is sampled after every
+     * enqueue if the actor has detailed metrics, and only at the beginning of every scheduling
+     * turn otherwise, which misses the bursts processed within a turn.
+     *
+     * @return The peak depth of the mailbox
+     */
+    public long getPeakDepth() {
+        return peakDepth;
+    }
+
+    /**
+     * Retrieves the number of messages processed.
+     *
+     * @return The number of messages
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Retrieves the number of messages dropped because the mailbox was full.
+     *
+     * @return The number of messages
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Retrieves the histogram of the time spent by messages in the mailbox. It is empty unless
+     * the actor has detailed metrics, since the time of the enqueues is not recorded otherwise.
+     *
+     * @return The histogram, in nanoseconds
+     */
+    public LatencyHistogram.Snapshot getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Retrieves the histogram of the execution time of {@code receive}.
+     *
+     * @return The histogram, in nanoseconds
+     */
+    public LatencyHistogram.Snapshot getReceiveTime() {
+        return receiveTime;
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + depth + ", peakDepth=" + peakDepth + ", processed=" + processed
+                + ", dropped=" + dropped + ", queueWait.p99=" + queueWait.getPercentile(99)
+                + "ns, receiveTime.p99=" + receiveTime.getPercentile(99) + "ns";
+    }
+}
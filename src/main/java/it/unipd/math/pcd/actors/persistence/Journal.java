@@ -0,0 +1,365 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.persistence;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.serialization.Codecs;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of the events of persistent actors, stored in a directory as a sequence
+ * of segments mapped in memory. Appending an event copies it into the mapped segment, and a
+ * single thread makes the appended events durable: every flush writes to the disk all the events
+ * appended since the previous one, so that the events of many actors share the cost of one sync,
+ * i.e. they are committed as a group.
+ * <p/>
+ * The journal keeps in memory the positions of the events of every actor, so that replaying the
+ * events of an actor reads only its records. Events are written by a {@link SerializerRegistry},
+ * so they benefit from the same codecs of the messages shipped to other systems.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see it.unipd.math.pcd.actors.PersistentActor
+ */
+public final class Journal implements Closeable {
+
+    /**
+     * Size of the segments of a journal, unless specified otherwise.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final AtomicInteger journalNumber = new AtomicInteger();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final SerializerRegistry serializers;
+    private final Thread flusher;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    // Positions of the records of every actor, as the number of the segment followed by the offset
+    private final Map<String, Positions> index = new HashMap<>();
+    // Appends waiting for the next flush
+    private List<CompletableFuture<Void>> pending = new ArrayList<>();
+    // Segments sealed since the last flush
+    private List<Segment> sealed = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Opens the journal stored in {@code directory}, with segments of {@link #DEFAULT_SEGMENT_SIZE}
+     * bytes and events written by a registry without codecs. The registry reads any class with
+     * Java serialization, since the journal reads only the files it has written.
+     *
+     * @param directory The directory of the journal, created if it does not exist
+     * @throws UncheckedIOException If the journal can not be opened
+     */
+    public Journal(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, trustedSerializers());
+    }
+
+    /**
+     * Opens the journal stored in {@code directory}, recovering the events appended before it
+     * was closed. Events whose write was interrupted by a crash are discarded.
+     *
+     * @param directory The directory of the journal, created if it does not exist
+     * @param segmentSize The size of the new segments, which bounds the size of an event
+     * @param serializers The registry that writes and reads the events, which must allow the
+     *                    classes of the events without a codec to be read with Java serialization
+     * @throws UncheckedIOException If the journal can not be opened
+     */
+    public Journal(Path directory, int segmentSize, SerializerRegistry serializers) {
+        if (segmentSize < 1024)
+            throw new IllegalArgumentException("Segments must be at least 1 KB long");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.serializers = serializers;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The journal in " + directory + " can not be opened", e);
+        }
+        this.flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flushLoop();
+            }
+        }, "pcd-actors-journal-" + journalNumber.incrementAndGet());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Maps the segments in order, loading the indexes of the sealed ones, and scanning the one
+     * that is appended to.
+     */
+    private void recover() throws IOException {
+        TreeMap<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + Segment.SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Integer.parseInt(name.substring(0, name.length() - Segment.SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not a segment
+                }
+            }
+        }
+        int count = files.isEmpty() ? 1 : files.lastKey() + 1;
+        if (!files.isEmpty() && (files.firstKey() != 0 || files.size() != count))
+            throw new IOException("Missing segments in " + directory + ": found " + files.keySet());
+        for (int number = 0; number < count; number++) {
+            Segment segment = Segment.open(directory, number, segmentSize);
+            boolean last = number == count - 1;
+            if (last || !segment.loadIndex()) {
+                segment.scan(last);
+                if (!last)
+                    segment.writeIndex();
+            }
+            for (Map.Entry<String, Positions> entry : segment.getOffsets().entrySet()) {
+                Positions positions = positionsOf(entry.getKey());
+                for (int i = 0; i < entry.getValue().size(); i++)
+                    positions.add(position(number, entry.getValue().get(i)));
+            }
+            segments.add(segment);
+        }
+        active = segments.get(count - 1);
+        active.buffer().position(active.getEnd());
+    }
+
+    private static SerializerRegistry trustedSerializers() {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.allowAnyJavaSerialization();
+        return serializers;
+    }
+
+    /**
+     * Appends an event of an actor.
+     *
+     * @param persistenceId The identifier of the actor, which is the same across restarts
+     * @param sequenceNr The number of the event among the ones of the actor
+     * @param event The event
+     * @return A future completed once the event has been written to the disk
+     * @throws IllegalStateException If the journal is closed
+     * @throws IllegalArgumentException If the event is larger than a segment
+     * @throws it.unipd.math.pcd.actors.exceptions.SerializationException If the event can not be
+     *         written
+     */
+    public CompletableFuture<Void> append(String persistenceId, long sequenceNr, Message event) {
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        synchronized (lock) {
+            if (closed)
+                throw new IllegalStateException("The journal is closed");
+            for (;;) {
+                MappedByteBuffer buffer = active.buffer();
+                int start = active.getEnd();
+                try {
+                    // The length of the record is written once the record is complete
+                    buffer.position(start + Segment.RECORD_HEADER);
+                    Codecs.putString(buffer, persistenceId);
+                    buffer.putLong(sequenceNr);
+                    serializers.serialize(event, buffer);
+                    int offset = active.complete(persistenceId, buffer.position() - start - Segment.RECORD_HEADER);
+                    positionsOf(persistenceId).add(position(active.getNumber(), offset));
+                    break;
+                } catch (BufferOverflowException | IllegalArgumentException e) {
+                    // The record does not fit, or its header does not
+                    if (start == 0)
+                        throw new IllegalArgumentException("The event is larger than a segment: " + event, e);
+                    roll();
+                }
+            }
+            pending.add(commit);
+            lock.notifyAll();
+        }
+        return commit;
+    }
+
+    /**
+     * Seals the segment appended to, and maps a new one. Called holding the lock.
+     */
+    private void roll() {
+        sealed.add(active);
+        try {
+            active = Segment.open(directory, active.getNumber() + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("A new segment of the journal can not be created", e);
+        }
+        segments.add(active);
+    }
+
+    /**
+     * Replays the events of an actor, in the order they were appended.
+     *
+     * @param persistenceId The identifier of the actor
+     * @param consumer Receives every event
+     * @return The sequence number of the last event, or 0 if the actor has no events
+     */
+    public long replay(String persistenceId, Consumer<Message> consumer) {
+        long[] positions;
+        List<Segment> snapshot;
+        synchronized (lock) {
+            Positions found = index.get(persistenceId);
+            if (found == null)
+                return 0;
+            positions = found.toArray();
+            snapshot = new ArrayList<>(segments);
+        }
+
+        long sequenceNr = 0;
+        for (long position : positions) {
+            ByteBuffer record = snapshot.get((int) (position >>> 32)).view();
+            int offset = (int) position;
+            record.limit(offset + Segment.RECORD_HEADER + record.getInt(offset));
+            record.position(offset + Segment.RECORD_HEADER);
+            readPersistenceId(record);
+            sequenceNr = record.getLong();
+            consumer.accept(serializers.deserialize(record));
+        }
+        return sequenceNr;
+    }
+
+    /**
+     * Makes durable the events appended until now, and completes their futures. Sealed segments
+     * are written before the indexes of their records.
+     */
+    private void flushLoop() {
+        for (;;) {
+            List<CompletableFuture<Void>> commits;
+            List<Segment> toForce;
+            Segment current;
+            boolean stop;
+            synchronized (lock) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Only close stops the flusher
+                    }
+                }
+                // Every append waiting now shares the next sync
+                commits = pending;
+                pending = new ArrayList<>();
+                toForce = sealed;
+                sealed = new ArrayList<>();
+                current = active;
+                stop = closed;
+            }
+
+            Throwable failure = null;
+            try {
+                for (Segment segment : toForce) {
+                    segment.force();
+                    segment.writeIndex();
+                }
+                current.force();
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            }
+            for (CompletableFuture<Void> commit : commits) {
+                if (failure == null)
+                    commit.complete(null);
+                else commit.completeExceptionally(failure);
+            }
+            if (stop)
+                return;
+        }
+    }
+
+    /**
+     * Makes durable the events appended, and closes the journal. Appending to a closed journal
+     * fails.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed)
+                return;
+            closed = true;
+            lock.notifyAll();
+        }
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                flusher.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private Positions positionsOf(String persistenceId) {
+        Positions positions = index.get(persistenceId);
+        if (positions == null) {
+            positions = new Positions();
+            index.put(persistenceId, positions);
+        }
+        return positions;
+    }
+
+    private static long position(int segment, long offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    /**
+     * Reads the persistence identifier at the start of the body of a record.
+     *
+     * @param record The record, positioned at the start of its body
+     * @return The persistence identifier
+     */
+    static String readPersistenceId(ByteBuffer record) {
+        return Codecs.getString(record);
+    }
+}
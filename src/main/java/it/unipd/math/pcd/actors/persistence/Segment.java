@@ -0,0 +1,266 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A file of the journal, mapped in memory. Records are appended one after the other, each one
+ * made of its length, the checksum of its body and its body; a zero length marks the end of the
+ * records. Once a segment is full it is sealed, and the offsets of its records are saved in an
+ * index file next to it, so that opening the journal again does not scan it.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+final class Segment {
+
+    static final String SEGMENT_SUFFIX = ".journal";
+    private static final String INDEX_SUFFIX = ".index";
+
+    /**
+     * Length and checksum of a record
+     */
+    static final int RECORD_HEADER = 8;
+
+    private final int number;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+
+    // Offset of the end of the records, guarded by the lock of the journal
+    private int end;
+
+    // Offsets of the records by persistence identifier, guarded by the lock of the journal
+    private final Map<String, Positions> offsets = new LinkedHashMap<>();
+
+    private Segment(int number, Path path, MappedByteBuffer buffer) {
+        this.number = number;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a segment, creating its file if it does not exist.
+     *
+     * @param directory The directory of the journal
+     * @param number The number of the segment
+     * @param size The size of a new segment; existing segments keep their size
+     * @return The segment
+     * @throws IOException If the file can not be mapped
+     */
+    static Segment open(Path directory, int number, int size) throws IOException {
+        Path path = directory.resolve(String.format("%010d", number) + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long length = channel.size() > 0 ? channel.size() : size;
+            // The mapping stays valid once the channel is closed
+            return new Segment(number, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+
+    int getNumber() {
+        return number;
+    }
+
+    int getEnd() {
+        return end;
+    }
+
+    Map<String, Positions> getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Retrieves a view of the records of the segment, with its own position and limit.
+     *
+     * @return The view
+     */
+    ByteBuffer view() {
+        return buffer.duplicate();
+    }
+
+    /**
+     * Retrieves the buffer the records are appended to, whose position must be accessed while
+     * holding the lock of the journal.
+     *
+     * @return The buffer
+     */
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Completes a record written by the journal at the end of the segment.
+     *
+     * @param persistenceId The persistence identifier of the record
+     * @param length The length of the body of the record
+     * @return The offset of the record
+     */
+    int complete(String persistenceId, int length) {
+        int start = end;
+        ByteBuffer body = buffer.duplicate();
+        body.limit(start + RECORD_HEADER + length);
+        body.position(start + RECORD_HEADER);
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        buffer.putInt(start + 4, (int) checksum.getValue());
+        // The length is written last, since it marks the record as complete
+        buffer.putInt(start, length);
+        end = start + RECORD_HEADER + length;
+        offsetsOf(persistenceId).add(start);
+        return start;
+    }
+
+    private Positions offsetsOf(String persistenceId) {
+        Positions positions = offsets.get(persistenceId);
+        if (positions == null) {
+            positions = new Positions();
+            offsets.put(persistenceId, positions);
+        }
+        return positions;
+    }
+
+    /**
+     * Finds the records of the segment, up to the first incomplete or corrupted one, which is
+     * the end of the records written before a crash. The bytes after the end are cleared, so that
+     * new records are never followed by stale ones.
+     *
+     * @param clear True to clear the bytes after the end, for the segment that is appended to
+     */
+    void scan(boolean clear) {
+        ByteBuffer records = buffer.duplicate();
+        int capacity = records.capacity();
+        int offset = 0;
+        CRC32 checksum = new CRC32();
+        while (offset + RECORD_HEADER <= capacity) {
+            int length = records.getInt(offset);
+            if (length <= 0 || length > capacity - offset - RECORD_HEADER)
+                break;
+            records.limit(offset + RECORD_HEADER + length);
+            records.position(offset + RECORD_HEADER);
+            checksum.reset();
+            checksum.update(records);
+            if ((int) checksum.getValue() != records.getInt(offset + 4))
+                break;
+            records.limit(capacity);
+            records.position(offset + RECORD_HEADER);
+            offsetsOf(Journal.readPersistenceId(records)).add(offset);
+            offset += RECORD_HEADER + length;
+        }
+        end = offset;
+        if (clear) {
+            int i = offset;
+            for (; i + 8 <= capacity; i += 8)
+                buffer.putLong(i, 0L);
+            for (; i < capacity; i++)
+                buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Loads the offsets of the records of a sealed segment from its index file.
+     *
+     * @return false if the index file is missing or unreadable, so that the segment has to be scanned
+     */
+    boolean loadIndex() {
+        Path index = indexPath();
+        if (!Files.exists(index))
+            return false;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            int indexedEnd = input.readInt();
+            int ids = input.readInt();
+            Map<String, Positions> loaded = new LinkedHashMap<>();
+            for (int i = 0; i < ids; i++) {
+                String persistenceId = input.readUTF();
+                int count = input.readInt();
+                Positions positions = new Positions();
+                for (int j = 0; j < count; j++)
+                    positions.add(input.readInt());
+                loaded.put(persistenceId, positions);
+            }
+            end = indexedEnd;
+            offsets.clear();
+            offsets.putAll(loaded);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Saves the offsets of the records of a sealed segment into its index file. The file is
+     * replaced atomically, so that it is either complete or missing.
+     *
+     * @throws IOException If the index can not be written
+     */
+    void writeIndex() throws IOException {
+        Path index = indexPath();
+        Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(end);
+            output.writeInt(offsets.size());
+            for (Map.Entry<String, Positions> entry : offsets.entrySet()) {
+                output.writeUTF(entry.getKey());
+                Positions positions = entry.getValue();
+                output.writeInt(positions.size());
+                for (int i = 0; i < positions.size(); i++)
+                    output.writeInt((int) positions.get(i));
+            }
+        }
+        Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the records of the segment to the disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    private Path indexPath() {
+        String name = path.getFileName().toString();
+        return path.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.serialization;
+
+import it.unipd.math.pcd.actors.exceptions.SerializationException;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers to write the fields of messages in a compact binary form. Integers are written as
+ * variable-length quantities, 7 bits per byte, and strings as their UTF-8 length followed by
+ * their UTF-8 bytes, encoded and decoded in place.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Codecs {
+
+    private Codecs() {
+    }
+
+    /**
+     * Writes a non-negative integer in 1 to 5 bytes.
+     *
+     * @param buffer The buffer
+     * @param value The integer
+     */
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an integer written by {@link #putVarInt(ByteBuffer, int)}.
+     *
+     * @param buffer The buffer
+     * @return The integer
+     * @throws SerializationException If the integer is malformed
+     */
+    public static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte next = buffer.get();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0)
+                return value;
+        }
+        throw new SerializationException("Malformed variable-length integer");
+    }
+
+    /**
+     * Writes a string, possibly null.
+     *
+     * @param buffer The buffer
+     * @param value The string
+     * @throws BufferOverflowException If the string does not fit in the buffer
+     */
+    public static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            putVarInt(buffer, 0);
+            return;
+        }
+        int length = value.length();
+        int bytes = utf8Length(value);
+        // 0 stands for null, so lengths are shifted by one
+        putVarInt(buffer, bytes + 1);
+        if (buffer.remaining() < bytes)
+            throw new BufferOverflowException();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #putString(ByteBuffer, String)}.
+     *
+     * @param buffer The buffer
+     * @return The string, possibly null
+     * @throws SerializationException If the string is malformed
+     */
+    public static String getString(ByteBuffer buffer) {
+        int bytes = getVarInt(buffer) - 1;
+        if (bytes < 0)
+            return null;
+        if (bytes > buffer.remaining())
+            throw new SerializationException("String of " + bytes + " bytes past the end of the buffer");
+        char[] chars = new char[bytes];
+        int length = 0;
+        int end = buffer.position() + bytes;
+        while (buffer.position() < end) {
+            int b = buffer.get();
+            if (b >= 0) {
+                chars[length++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[length++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[length++] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get() & 0x3F) << 12)
+                        | ((buffer.get() & 0x3F) << 6) | (buffer.get() & 0x3F);
+                chars[length++] = Character.highSurrogate(codePoint);
+                chars[length++] = Character.lowSurrogate(codePoint);
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                // 3 bytes, or 4 bytes for a surrogate pair
+                bytes += 2;
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1)))
+                    i++;
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.serialization;
+
+import it.unipd.math.pcd.actors.Message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary form of a type of messages. A codec writes the fields of a message directly into a
+ * buffer, and reads them back from it, without building intermediate objects; the helpers of
+ * {@link Codecs} cover the common field types.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ * @see SerializerRegistry#register(Class, int, MessageCodec)
+ */
+public interface MessageCodec<T extends Message> {
+
+    /**
+     * Writes {@code message} at the position of {@code buffer}.
+     *
+     * @param message The message
+     * @param buffer The buffer
+     * @throws java.nio.BufferOverflowException If the message does not fit in the buffer; the
+     *         message is then written again into a larger buffer
+     */
+    void encode(T message, ByteBuffer buffer);
+
+    /**
+     * Reads a message written by {@link #encode(Message, ByteBuffer)} at the position of
+     * {@code buffer}.
+     *
+     * @param buffer The buffer
+     * @return The message
+     */
+    T decode(ByteBuffer buffer);
+}
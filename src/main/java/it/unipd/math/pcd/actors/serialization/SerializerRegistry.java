@@ -0,0 +1,327 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.serialization;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.exceptions.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Codecs of the messages shipped to other actor systems, by class of the message. A message is
+ * written as the identifier of its codec followed by the output of the codec; messages of classes
+ * without a codec fall back to Java serialization, which is slower and larger. The systems
+ * exchanging messages must register the same codecs with the same identifiers.
+ * <p/>
+ * Codecs are looked up by the exact class of the message, not by its superclasses.
+ * <p/>
+ * Reading a Java serialized stream instantiates the classes it names, so a stream crafted by a
+ * peer could execute code through the classes on the class path. Hence Java serialization reads
+ * only the classes allowed with {@link #allowJavaSerialization(Class)}, besides strings, boxed
+ * primitives and arrays of them: every other stream is rejected before any object is created.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class SerializerRegistry {
+
+    /**
+     * Identifier of the messages written with Java serialization.
+     */
+    public static final int JAVA_SERIALIZATION = 0;
+
+    // Bounds the table of the codecs by identifier
+    private static final int MAX_ID = 0xFFFF;
+
+    // Classes that Java serialization always reads, since they can not run any code
+    private static final Set<String> ALWAYS_ALLOWED = new HashSet<>(Arrays.asList(
+            String.class.getName(), Number.class.getName(), Enum.class.getName(),
+            Boolean.class.getName(), Character.class.getName(), Byte.class.getName(),
+            Short.class.getName(), Integer.class.getName(), Long.class.getName(),
+            Float.class.getName(), Double.class.getName()));
+
+    private final ConcurrentMap<Class<?>, Registration> byClass = new ConcurrentHashMap<>();
+
+    /**
+     * Codecs by identifier, replaced on every registration so that reading needs no lock
+     */
+    private volatile Registration[] byId = new Registration[0];
+
+    // Names of the classes that Java serialization may read
+    private final Set<String> allowed = ConcurrentHashMap.newKeySet();
+    private volatile boolean anyAllowed;
+
+    /**
+     * Registers the codec of a class of messages.
+     *
+     * @param type The class of the messages
+     * @param id The identifier of the codec, between 1 and 65535
+     * @param codec The codec
+     * @param <T> The type of the messages
+     * @throws IllegalArgumentException If the identifier is invalid, or if the class or the
+     *         identifier have a codec already
+     */
+    public synchronized <T extends Message> void register(Class<T> type, int id, MessageCodec<T> codec) {
+        if (type == null || codec == null)
+            throw new IllegalArgumentException("The class and the codec must not be null");
+        if (id <= JAVA_SERIALIZATION || id > MAX_ID)
+            throw new IllegalArgumentException("Invalid codec identifier " + id);
+        if (byClass.containsKey(type))
+            throw new IllegalArgumentException("A codec is already registered for " + type.getName());
+        if (id < byId.length && byId[id] != null)
+            throw new IllegalArgumentException("The codec identifier " + id + " is already registered");
+        Registration registration = new Registration(id, codec);
+        Registration[] updated = id < byId.length ? byId.clone() : Arrays.copyOf(byId, id + 1);
+        updated[id] = registration;
+        byId = updated;
+        byClass.put(type, registration);
+    }
+
+    /**
+     * Allows the messages of a class without a codec to be read with Java serialization,
+     * together with their superclasses and the declared classes of their fields. Objects whose
+     * class differs from the declared one, e.g. the implementation of a field of type
+     * {@link java.util.List}, must be allowed as well.
+     *
+     * @param type The class of the messages
+     */
+    public void allowJavaSerialization(Class<? extends Message> type) {
+        if (type == null)
+            throw new IllegalArgumentException("The class must not be null");
+        allow(type);
+    }
+
+    /**
+     * Allows Java serialization to read any class. Only for registries that read trusted data,
+     * such as the journal written by the application itself: never for the registry of an actor
+     * system that listens to other systems.
+     */
+    public void allowAnyJavaSerialization() {
+        anyAllowed = true;
+    }
+
+    private void allow(Class<?> type) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive() || !allowed.add(type.getName()) || type.getName().startsWith("java."))
+            return;
+        // The fields of the serializable superclasses are written as well
+        for (Class<?> current = type; current != null && Serializable.class.isAssignableFrom(current);
+             current = current.getSuperclass()) {
+            allowed.add(current.getName());
+            for (Field field : current.getDeclaredFields()) {
+                if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0)
+                    allow(field.getType());
+            }
+        }
+    }
+
+    private boolean isAllowed(String name) {
+        if (anyAllowed)
+            return true;
+        // Arrays are named after the descriptor of their components
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[')
+            dimensions++;
+        if (dimensions > 0) {
+            if (name.length() == dimensions + 1)
+                return true;
+            name = name.substring(dimensions + 1, name.length() - 1);
+        }
+        return ALWAYS_ALLOWED.contains(name) || allowed.contains(name);
+    }
+
+    /**
+     * Writes {@code message} at the position of {@code buffer}.
+     *
+     * @param message The message
+     * @param buffer The buffer
+     * @throws java.nio.BufferOverflowException If the message does not fit in the buffer; its
+     *         content is then undefined, and the message has to be written into a larger buffer
+     * @throws SerializationException If the message can not be written
+     */
+    @SuppressWarnings("unchecked")
+    public void serialize(Message message, ByteBuffer buffer) {
+        Registration registration = byClass.get(message.getClass());
+        if (registration != null) {
+            Codecs.putVarInt(buffer, registration.id);
+            ((MessageCodec<Message>) registration.codec).encode(message, buffer);
+            return;
+        }
+
+        Codecs.putVarInt(buffer, JAVA_SERIALIZATION);
+        // The length bounds the reading, since object streams can read ahead
+        int start = buffer.position();
+        buffer.putInt(0);
+        try {
+            ObjectOutputStream output = new ObjectOutputStream(new ByteBufferOutputStream(buffer));
+            output.writeObject(message);
+            output.flush();
+        } catch (IOException e) {
+            throw new SerializationException("The message can not be serialized: " + message, e);
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    /**
+     * Reads a message written by {@link #serialize(Message, ByteBuffer)} at the position of
+     * {@code buffer}.
+     *
+     * @param buffer The buffer
+     * @return The message
+     * @throws SerializationException If the message can not be read, e.g. because its codec is
+     *         not registered or because its class is not allowed to be read with Java serialization
+     */
+    public Message deserialize(ByteBuffer buffer) {
+        int id = Codecs.getVarInt(buffer);
+        if (id != JAVA_SERIALIZATION) {
+            Registration[] codecs = byId;
+            if (id < 0 || id >= codecs.length || codecs[id] == null)
+                throw new SerializationException("No codec registered with identifier " + id);
+            return codecs[id].codec.decode(buffer);
+        }
+
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+            throw new SerializationException("Serialized message of " + length + " bytes past the end of the buffer");
+        ByteBuffer object = buffer.slice();
+        object.limit(length);
+        buffer.position(buffer.position() + length);
+        try {
+            return (Message) new FilteringObjectInputStream(new ByteBufferInputStream(object)).readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new SerializationException("The message can not be deserialized", e);
+        }
+    }
+
+    private static final class Registration {
+        private final int id;
+        private final MessageCodec<?> codec;
+
+        Registration(int id, MessageCodec<?> codec) {
+            this.id = id;
+            this.codec = codec;
+        }
+    }
+
+    /**
+     * Reads only the classes allowed by the registry, rejecting a stream as soon as it names any
+     * other class.
+     */
+    private final class FilteringObjectInputStream extends ObjectInputStream {
+
+        FilteringObjectInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+            if (!isAllowed(descriptor.getName()))
+                throw new InvalidClassException(descriptor.getName(), "Not allowed to be deserialized");
+            return super.resolveClass(descriptor);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            if (!anyAllowed)
+                throw new InvalidClassException("Proxy classes are not allowed to be deserialized");
+            return super.resolveProxyClass(interfaces);
+        }
+    }
+
+    /**
+     * Writes a stream into a buffer, without copying it into an array first.
+     */
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Reads a stream from a buffer, without copying it into an array first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0)
+                return 0;
+            if (!buffer.hasRemaining())
+                return -1;
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
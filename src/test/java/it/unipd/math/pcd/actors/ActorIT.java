@@ -43,12 +43,22 @@ import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
 import it.unipd.math.pcd.actors.utils.actors.ping.pong.PingPongActor;
 import it.unipd.math.pcd.actors.utils.actors.StoreActor;
 import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import it.unipd.math.pcd.actors.utils.messages.TrivialMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
 import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
 import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Integration test suite on actor features.
  *
@@ -68,6 +78,14 @@ public class ActorIT {
         this.system = ActorSystemFactory.buildActorSystem();
     }
 
+    /**
+     * Releases the threads of the {@code system} after each test.
+     */
+    @After
+    public void tearDown() {
+        this.system.shutdown();
+    }
+
     @Test
     public void shouldBeAbleToSendAMessage() throws InterruptedException {
         TestActorRef ref = new TestActorRef(system.actorOf(StoreActor.class));
@@ -80,6 +98,16 @@ public class ActorIT {
         Assert.assertEquals("The message has to be received by the actor", "Hello World", actor.getData());
     }
 
+    @Test
+    public void shouldBeAbleToSendAMessageToAnActorOnVirtualThreads() throws InterruptedException {
+        ActorConfig config = ActorConfig.defaults().withDispatcher(new VirtualThreadDispatcher());
+        TestActorRef ref = new TestActorRef(system.actorOf(StoreActor.class, config));
+        StoreActor actor = (StoreActor) ref.getUnderlyingActor(system);
+        ref.send(new StoreMessage("Hello World"), ref);
+        Thread.sleep(2000);
+        Assert.assertEquals("The message has to be received by the actor", "Hello World", actor.getData());
+    }
+
     @Test
     public void shouldBeAbleToRespondToAMessage() throws InterruptedException {
         TestActorRef pingRef = new TestActorRef(system.actorOf(PingPongActor.class));
@@ -98,6 +126,94 @@ public class ActorIT {
                 pongActor.getLastMessage().getMessage());
     }
 
+    @Test
+    public void shouldBeAbleToRespondToAMessageOnAWorkStealingDispatcher() throws InterruptedException {
+        ActorConfig config = ActorConfig.defaults().withDispatcher(new ForkJoinDispatcher(2));
+        TestActorRef pingRef = new TestActorRef(system.actorOf(PingPongActor.class, config));
+        TestActorRef pongRef = new TestActorRef(system.actorOf(PingPongActor.class, config));
+
+        // The response is sent by a thread of the pool, and forked on its local queue
+        pongRef.send(new PingMessage(), pingRef);
+
+        Thread.sleep(2000);
+
+        PingPongActor pongActor = (PingPongActor) pongRef.getUnderlyingActor(system);
+        Assert.assertEquals("A pong actor has received back a pong message", "Pong",
+                pongActor.getLastMessage().getMessage());
+    }
+
+    @Test
+    public void shouldNotLooseAnyMessageSentToAPinnedActor() throws Exception {
+        ActorConfig config = ActorConfig.defaults().withPinnedDispatcher(IdleStrategy.busySpin());
+        ActorRef counter = system.actorOf(CounterActor.class, config);
+        for (int i = 0; i < 200; i++) {
+            TestActorRef adder = new TestActorRef(system.actorOf(TrivialActor.class));
+            adder.send(new Increment(), counter);
+        }
+
+        Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+        system.stop(counter);
+
+        Assert.assertEquals("A pinned counter incremented 200 times should be equal to 200",
+                200, result.getResult());
+    }
+
+    @Test
+    public void shouldNotLooseAnyMessageWithAnyIdleStrategy() throws Exception {
+        IdleStrategy[] strategies = {
+                IdleStrategy.busySpin(),
+                IdleStrategy.spinThenYield(100),
+                IdleStrategy.spinThenPark(100, 1, TimeUnit.MILLISECONDS),
+                IdleStrategy.blocking()
+        };
+        for (IdleStrategy strategy : strategies) {
+            Dispatcher dispatcher = new ThreadPoolDispatcher(2, strategy);
+            ActorConfig config = ActorConfig.defaults().withDispatcher(dispatcher);
+            ActorRef counter = system.actorOf(CounterActor.class, config);
+            List<ActorRef> adders = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ActorRef adder = system.actorOf(TrivialActor.class, config);
+                new TestActorRef(adder).send(new Increment(), counter);
+                adders.add(adder);
+            }
+
+            Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+            // The actors must terminate before the threads that execute them are released
+            system.stop(counter).get(2, TimeUnit.SECONDS);
+            for (ActorRef adder : adders)
+                system.stop(adder).get(2, TimeUnit.SECONDS);
+            dispatcher.shutdown();
+
+            Assert.assertEquals("A counter incremented 200 times should be equal to 200",
+                    200, result.getResult());
+        }
+    }
+
+    @Test
+    public void shouldProcessEveryMessageSentOneAtATime() throws Exception {
+        assertProcessedOneAtATime(ActorConfig.defaults());
+    }
+
+    @Test
+    public void shouldProcessEveryMessageSentOneAtATimeToARing() throws Exception {
+        assertProcessedOneAtATime(ActorConfig.defaults().withMailBox(MailBoxFactory.ring(16)));
+    }
+
+    @Test
+    public void shouldNotLooseAnyMessageSentInABatch() throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class);
+        ActorRef adder = system.actorOf(TrivialActor.class);
+        List<Increment> increments = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            increments.add(new Increment());
+        adder.sendAll(increments, counter);
+
+        Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        Assert.assertEquals("A counter incremented by a batch of 200 messages should be equal to 200",
+                200, result.getResult());
+    }
+
     @Test
     public void shouldNotLooseAnyMessage() throws InterruptedException {
         TestActorRef counter = new TestActorRef(system.actorOf(CounterActor.class));
@@ -111,4 +227,76 @@ public class ActorIT {
         Assert.assertEquals("A counter that was incremented 1000 times should be equal to 1000",
                 200, ((CounterActor) counter.getUnderlyingActor(system)).getCounter());
     }
+
+    @Test
+    public void shouldNotLooseAnyMessageYieldingAfterEachMessage() throws InterruptedException {
+        ActorConfig config = ActorConfig.defaults()
+                .withDispatcher(new ThreadPoolDispatcher(2, 1, 0, TimeUnit.NANOSECONDS));
+        TestActorRef counter = new TestActorRef(system.actorOf(CounterActor.class, config));
+        for (int i = 0; i < 200; i++) {
+            TestActorRef adder = new TestActorRef(system.actorOf(TrivialActor.class, config));
+            adder.send(new Increment(), counter);
+        }
+
+        Thread.sleep(2000);
+
+        Assert.assertEquals("A counter processing a message per turn should be equal to 200",
+                200, ((CounterActor) counter.getUnderlyingActor(system)).getCounter());
+    }
+
+    @Test
+    public void shouldBeAbleToAskForAResponse() throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class);
+        for (int i = 0; i < 10; i++)
+            counter.send(new Increment(), counter);
+
+        Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        Assert.assertEquals("The response reports the value of the counter", 10, result.getResult());
+    }
+
+    @Test
+    public void shouldDeliverScheduledMessages() throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class);
+        system.scheduleOnce(50, TimeUnit.MILLISECONDS, counter, new Increment());
+        system.scheduleOnce(50, TimeUnit.MILLISECONDS, counter, new Increment()).cancel();
+        Cancellable ticks = system.scheduleAtFixedRate(0, 10, TimeUnit.MILLISECONDS, counter, new Increment());
+
+        Thread.sleep(200);
+        ticks.cancel();
+        // A tick may be in flight while it is cancelled
+        Thread.sleep(50);
+        Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        Assert.assertTrue("The delayed message and some ticks have been delivered", result.getResult() > 2);
+        int delivered = result.getResult();
+        Thread.sleep(100);
+        result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertEquals("No tick is delivered once cancelled", delivered, result.getResult());
+    }
+
+    @Test
+    public void shouldExpireAnAskWithoutResponse() throws InterruptedException {
+        ActorRef ref = system.actorOf(TrivialActor.class);
+        try {
+            system.ask(ref, new TrivialMessage(), 100, TimeUnit.MILLISECONDS).get();
+            Assert.fail("A request without response must expire");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("The request expires with a timeout", e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    /**
+     * Sends each message only once the previous one has been processed, so that the actor is
+     * idle, or about to become idle, at every send: a message missed by the scheduling is never
+     * processed, since no later message schedules the actor again.
+     */
+    private void assertProcessedOneAtATime(ActorConfig config) throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class, config);
+        for (int i = 1; i <= 10000; i++) {
+            counter.send(new Increment(), counter);
+            Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+            Assert.assertEquals("Every message is processed before the next one is sent", i, result.getResult());
+        }
+    }
 }
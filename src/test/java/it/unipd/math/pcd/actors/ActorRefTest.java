@@ -41,6 +41,7 @@ import it.unipd.math.pcd.actors.MyActorSystem;
 import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
 import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
 import it.unipd.math.pcd.actors.utils.messages.TrivialMessage;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -64,6 +65,14 @@ public class ActorRefTest {
         system = ActorSystemFactory.buildActorSystem();
     }
 
+    /**
+     * Releases the threads of the {@code system} after each test.
+     */
+    @After
+    public void tearDown() {
+        system.shutdown();
+    }
+
     @Test
     public void shouldImplementComparable() {
         ActorRef ref1 = system.actorOf(TrivialActor.class);
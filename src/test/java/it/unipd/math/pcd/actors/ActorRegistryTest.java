@@ -0,0 +1,89 @@
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases about {@link ActorRegistry} type.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class ActorRegistryTest {
+
+    private ActorRegistry registry;
+
+    @Before
+    public void init() {
+        registry = new ActorRegistry();
+    }
+
+    @Test
+    public void shouldRetrieveARegisteredActor() {
+        TrivialActor actor = new TrivialActor();
+        long id = registry.register(null, actor);
+        Assert.assertSame("An actor is retrieved by its identifier", actor, registry.get(id));
+        Assert.assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void shouldNotResolveTheIdentifierOfARemovedActor() {
+        long removed = registry.register(null, new TrivialActor());
+        Assert.assertTrue(registry.remove(removed));
+        Assert.assertFalse("An actor can be removed only once", registry.remove(removed));
+
+        TrivialActor actor = new TrivialActor();
+        long id = registry.register(null, actor);
+        Assert.assertEquals("The slot of the removed actor is reused", (int) removed, (int) id);
+        Assert.assertNull("A stale identifier does not resolve to the new actor", registry.get(removed));
+        Assert.assertSame(actor, registry.get(id));
+    }
+
+    @Test
+    public void shouldGrowBeyondASingleChunk() {
+        long[] ids = new long[5000];
+        for (int i = 0; i < ids.length; i++)
+            ids[i] = registry.register(null, new TrivialActor());
+        for (long id : ids)
+            Assert.assertNotNull(registry.get(id));
+        Assert.assertEquals(ids.length, registry.references().size());
+        Assert.assertNull("Identifiers out of bounds are not resolved", registry.get(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldNotAssignTheSameSlotTwiceUnderContention() throws InterruptedException {
+        final int threads = 4;
+        final int cycles = 20000;
+        final ConcurrentHashMap<Integer, Boolean> used = new ConcurrentHashMap<>();
+        final AtomicInteger collisions = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < cycles; i++) {
+                        long id = registry.register(null, new TrivialActor());
+                        // A slot held by a live actor must never be handed out again
+                        if (used.putIfAbsent((int) id, Boolean.TRUE) != null)
+                            collisions.incrementAndGet();
+                        used.remove((int) id);
+                        registry.remove(id);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        Assert.assertEquals("Every slot is held by one actor at a time", 0, collisions.get());
+        Assert.assertEquals(0, registry.size());
+        Assert.assertTrue("Freed slots are reused", (int) registry.register(null, new TrivialActor()) < threads);
+    }
+}
@@ -38,13 +38,27 @@
 package it.unipd.math.pcd.actors;
 
 import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.metrics.MetricsSnapshot;
 import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
 import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.FailingCounterActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.PersistentCounterActor;
 import it.unipd.math.pcd.actors.utils.messages.TrivialMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Decrement;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Tests features of an actors' system.
  *
@@ -64,6 +78,14 @@ public class ActorSystemTest {
         system = ActorSystemFactory.buildActorSystem();
     }
 
+    /**
+     * Releases the threads of the {@code system} after each test.
+     */
+    @After
+    public void tearDown() {
+        system.shutdown();
+    }
+
     @Test
     public void shouldCreateAnActorRefWithActorOfTest() {
         ActorRef ref = system.actorOf(TrivialActor.class);
@@ -105,4 +127,209 @@ public class ActorSystemTest {
         system.stop(ref1);
         system.stop(ref1);
     }
+
+    @Test
+    public void shouldNotCreateAThreadForEachActor() {
+        int threads = Thread.activeCount();
+        for (int i = 0; i < 5000; i++) {
+            ActorRef ref = system.actorOf(TrivialActor.class);
+            ref.send(new TrivialMessage(), ref);
+        }
+        Assert.assertTrue("Actors are executed by a bounded pool of threads",
+                Thread.activeCount() - threads <= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void shouldNotStopTheActorsOfAnotherSystem() throws Exception {
+        ActorSystem other = ActorSystemFactory.buildActorSystem();
+        try {
+            ActorRef counter = other.actorOf(CounterActor.class);
+            system.actorOf(TrivialActor.class);
+            system.stop().get(2, TimeUnit.SECONDS);
+
+            counter.send(new Increment(), counter);
+            Result result = other.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+            Assert.assertEquals("The actor of the other system still processes its messages", 1, result.getResult());
+            Assert.assertFalse("The actor of the other system is not terminated", other.watch(counter).isDone());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldGoOnAndTerminateAfterAReceiveThrows() throws Exception {
+        final AtomicInteger failures = new AtomicInteger();
+        system.addListener(new ActorListener() {
+            @Override
+            public void onReceiveFailure(ActorRef<?> actor, Message message, Throwable cause) {
+                failures.incrementAndGet();
+            }
+        });
+        ActorRef counter = system.actorOf(FailingCounterActor.class);
+        counter.send(new Decrement(), counter);
+        counter.send(new Increment(), counter);
+        counter.send(new Increment(), counter);
+
+        Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The messages after the failure are processed", 2, result.getResult());
+        Assert.assertEquals("The failure is notified", 1, failures.get());
+
+        counter.send(new Decrement(), counter);
+        system.stop().get(2, TimeUnit.SECONDS);
+        Assert.assertEquals("An actor that throws terminates once stopped", 2, failures.get());
+    }
+
+    @Test
+    public void shouldCompleteTheTerminationOfAStoppedActor() throws Exception {
+        ActorRef ref = system.actorOf(TrivialActor.class);
+        ref.send(new TrivialMessage(), ref);
+        final AtomicBoolean notified = new AtomicBoolean();
+        system.watch(ref).thenRun(new Runnable() {
+            @Override
+            public void run() {
+                notified.set(true);
+            }
+        });
+        system.stop(ref).get(2, TimeUnit.SECONDS);
+        Assert.assertTrue("A watcher is notified of the termination", notified.get());
+    }
+
+    @Test(expected = NoSuchActorException.class)
+    public void shouldRemoveAStoppedActorOnceTerminated() throws Exception {
+        ActorRef ref = system.actorOf(TrivialActor.class);
+        system.stop().get(2, TimeUnit.SECONDS);
+        system.watch(ref);
+    }
+
+    @Test
+    public void shouldTrackTheMessagesProcessedByAnActor() throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class, ActorConfig.defaults().withDetailedMetrics());
+        for (int i = 0; i < 10; i++)
+            counter.send(new Increment(), counter);
+        system.ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        MetricsSnapshot snapshot = system.metrics().snapshot(counter);
+        Assert.assertTrue("The increments have been processed", snapshot.getProcessed() >= 10);
+        Assert.assertTrue("The time of every message is recorded",
+                snapshot.getReceiveTime().getCount() >= 10 && snapshot.getQueueWait().getCount() >= 10);
+        Assert.assertTrue("The depth is sampled when a message is enqueued", snapshot.getPeakDepth() >= 1);
+        Assert.assertTrue("The mailbox has been drained", snapshot.getDepth() <= 1);
+        Assert.assertTrue("The snapshot of the system includes the actor",
+                system.metrics().snapshot().containsKey(counter));
+    }
+
+    @Test
+    public void shouldNotTimestampTheMessagesWithoutDetailedMetrics() throws Exception {
+        ActorRef counter = system.actorOf(CounterActor.class);
+        for (int i = 0; i < 10; i++)
+            counter.send(new Increment(), counter);
+        system.ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        MetricsSnapshot snapshot = system.metrics().snapshot(counter);
+        Assert.assertTrue("The time spent in receive is recorded anyway", snapshot.getReceiveTime().getCount() >= 10);
+        Assert.assertEquals("The time spent in the mailbox is not recorded", 0, snapshot.getQueueWait().getCount());
+    }
+
+    @Test
+    public void shouldNotifyTheListenersOfTheSystem() throws Exception {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger enqueued = new AtomicInteger();
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger stopped = new AtomicInteger();
+        system.addListener(new ActorListener() {
+            @Override
+            public void onActorCreated(ActorRef<?> actor) {
+                created.incrementAndGet();
+            }
+
+            @Override
+            public void onEnqueue(ActorRef<?> actor, Message message, ActorRef<?> sender) {
+                enqueued.incrementAndGet();
+            }
+
+            @Override
+            public void onReceiveEnd(ActorRef<?> actor, Message message) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onActorStopped(ActorRef<?> actor) {
+                stopped.incrementAndGet();
+            }
+        });
+
+        ActorRef counter = system.actorOf(CounterActor.class);
+        for (int i = 0; i < 5; i++)
+            counter.send(new Increment(), counter);
+        system.stop(counter).get(2, TimeUnit.SECONDS);
+
+        Assert.assertEquals("The creation is notified", 1, created.get());
+        Assert.assertEquals("Every message is notified when enqueued", 5, enqueued.get());
+        Assert.assertEquals("Every message is notified when received", 5, received.get());
+        Assert.assertEquals("The termination is notified", 1, stopped.get());
+    }
+
+    @Test
+    public void shouldReleaseTheThreadOfAPinnedActorOnceTerminated() throws Exception {
+        final AtomicReference<Thread> executor = new AtomicReference<>();
+        system.addListener(new ActorListener() {
+            @Override
+            public void onReceiveStart(ActorRef<?> actor, Message message) {
+                executor.set(Thread.currentThread());
+            }
+        });
+        ActorConfig config = ActorConfig.defaults()
+                .withPinnedDispatcher(IdleStrategy.spinThenPark(100, 1, TimeUnit.MILLISECONDS));
+        ActorRef counter = system.actorOf(CounterActor.class, config);
+        system.ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertTrue("A pinned actor has a thread of its own",
+                executor.get().getName().startsWith("pcd-actors-pinned-"));
+
+        system.stop(counter).get(2, TimeUnit.SECONDS);
+        executor.get().join(2000);
+        Assert.assertFalse("The thread terminates with the actor", executor.get().isAlive());
+    }
+
+    @Test
+    public void shouldReleaseTheThreadOfAPinnedActorThatCanNotBeCreated() throws Exception {
+        int before = pinnedThreads();
+        ActorConfig config = ActorConfig.defaults()
+                .withPinnedDispatcher(IdleStrategy.spinThenPark(100, 1, TimeUnit.MILLISECONDS));
+        try {
+            // A persistent actor without a journal
+            system.actorOf(PersistentCounterActor.class, config);
+            Assert.fail("A persistent actor can not be created without a journal");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        for (int i = 0; i < 200 && pinnedThreads() > before; i++)
+            Thread.sleep(10);
+        Assert.assertEquals("The thread of the actor terminates", before, pinnedThreads());
+    }
+
+    @Test
+    public void shouldReleaseTheThreadsOfTheSystemOnShutdown() throws Exception {
+        final AtomicReference<Thread> executor = new AtomicReference<>();
+        system.addListener(new ActorListener() {
+            @Override
+            public void onReceiveStart(ActorRef<?> actor, Message message) {
+                executor.set(Thread.currentThread());
+            }
+        });
+        ActorRef counter = system.actorOf(CounterActor.class);
+        system.ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+
+        system.shutdown().get(2, TimeUnit.SECONDS);
+        executor.get().join(2000);
+        Assert.assertFalse("The threads of the dispatcher terminate with the system", executor.get().isAlive());
+    }
+
+    private static int pinnedThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("pcd-actors-pinned-") && thread.isAlive())
+                count++;
+        }
+        return count;
+    }
 }
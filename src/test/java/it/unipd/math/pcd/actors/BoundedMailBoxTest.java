@@ -0,0 +1,114 @@
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases about {@link BoundedMailBox} type and its {@link OverflowPolicy overflow policies}.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class BoundedMailBoxTest {
+
+    private static MailBox<StoreMessage> fill(MailBox<StoreMessage> mailBox, String... payloads) {
+        for (String payload : payloads)
+            mailBox.add(new StoreMessage(payload), null);
+        return mailBox;
+    }
+
+    @Test
+    public void shouldDropTheNewestMessage() {
+        MailBox<StoreMessage> mailBox = fill(new BoundedMailBox<StoreMessage>(2, OverflowPolicy.DROP_NEWEST),
+                "a", "b", "c");
+        Assert.assertEquals("One message was dropped", 1, mailBox.getDroppedCount());
+        Assert.assertEquals("a", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("b", mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("The newest message was dropped", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldDropTheOldestMessage() {
+        MailBox<StoreMessage> mailBox = fill(new BoundedMailBox<StoreMessage>(2, OverflowPolicy.DROP_OLDEST),
+                "a", "b", "c");
+        Assert.assertEquals("One message was dropped", 1, mailBox.getDroppedCount());
+        Assert.assertEquals("b", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("c", mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("The oldest message was dropped", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldDropAnOfferedMessageInsteadOfWaiting() {
+        MailBox<StoreMessage> mailBox = fill(new BoundedMailBox<StoreMessage>(1, OverflowPolicy.BLOCK), "a");
+        mailBox.offer(new StoreMessage("b"), null);
+        mailBox.offerAll(Arrays.asList(new StoreMessage("c"), new StoreMessage("d")), null);
+        Assert.assertEquals("The offered messages that do not fit are dropped", 3, mailBox.getDroppedCount());
+        Assert.assertEquals("a", mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue(mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldFailWhenFull() {
+        MailBox<StoreMessage> mailBox = fill(new BoundedMailBox<StoreMessage>(1, OverflowPolicy.FAIL), "a");
+        try {
+            mailBox.add(new StoreMessage("b"), null);
+            Assert.fail("A full mailbox must reject a message");
+        } catch (MailBoxOverflowException e) {
+            Assert.assertEquals("The rejected message is counted", 1, mailBox.getDroppedCount());
+        }
+        mailBox.remove();
+        mailBox.add(new StoreMessage("c"), null);
+        Assert.assertEquals("A slot is available again after a remove", "c",
+                mailBox.remove().getMessage().getPayload());
+    }
+
+    @Test
+    public void shouldDropAfterTheTimeout() {
+        MailBox<StoreMessage> mailBox = fill(
+                new BoundedMailBox<StoreMessage>(1, OverflowPolicy.BLOCK_WITH_TIMEOUT, 10, TimeUnit.MILLISECONDS),
+                "a", "b");
+        Assert.assertEquals("The message was dropped after the timeout", 1, mailBox.getDroppedCount());
+    }
+
+    @Test
+    public void shouldBlockTheSenderUntilThereIsRoom() throws InterruptedException {
+        final MailBox<StoreMessage> mailBox = fill(new BoundedMailBox<StoreMessage>(1, OverflowPolicy.BLOCK), "a");
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                mailBox.add(new StoreMessage("b"), null);
+            }
+        });
+        sender.start();
+        sender.join(100);
+        Assert.assertTrue("The sender waits while the mailbox is full", sender.isAlive());
+
+        Assert.assertEquals("a", mailBox.remove().getMessage().getPayload());
+        sender.join(2000);
+        Assert.assertFalse("The sender completes once there is room", sender.isAlive());
+        Assert.assertEquals("b", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("No message was dropped", 0, mailBox.getDroppedCount());
+    }
+
+    @Test
+    public void shouldApplyThePolicyToABatchWithoutRoom() {
+        MailBox<StoreMessage> mailBox = new BoundedMailBox<>(3, OverflowPolicy.DROP_NEWEST);
+        mailBox.addAll(Arrays.asList(new StoreMessage("a"), new StoreMessage("b")), null);
+        mailBox.addAll(Arrays.asList(new StoreMessage("c"), new StoreMessage("d")), null);
+        Assert.assertEquals("The message beyond the capacity was dropped", 1, mailBox.getDroppedCount());
+        for (String expected : new String[]{"a", "b", "c"})
+            Assert.assertEquals(expected, mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("The newest message was dropped", mailBox.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectANonPositiveCapacityWhenConfigured() {
+        MailBoxFactory.bounded(0, OverflowPolicy.FAIL);
+    }
+}
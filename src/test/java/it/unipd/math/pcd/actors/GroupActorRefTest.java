@@ -0,0 +1,149 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.NoSuchActorException;
+import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the broadcast of messages to groups of actors.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class GroupActorRefTest {
+
+    private ActorSystem system;
+
+    @Before
+    public void init() {
+        system = ActorSystemFactory.buildActorSystem();
+    }
+
+    /**
+     * Releases the threads of the {@code system} after each test.
+     */
+    @After
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverEveryMessageToEveryMember() throws Exception {
+        List<ActorRef<?>> counters = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            counters.add(system.actorOf(CounterActor.class));
+        ActorRef group = system.groupOf(counters);
+
+        for (int i = 0; i < 5; i++)
+            group.send(new Increment(), group);
+
+        for (ActorRef<?> counter : counters) {
+            Result result = system.<Result>ask(counter, new Get(), 2, TimeUnit.SECONDS).get();
+            Assert.assertEquals("Every member receives every broadcast", 5, result.getResult());
+        }
+    }
+
+    @Test
+    public void shouldSkipTheStoppedMembers() throws Exception {
+        ActorRef<?> stopped = system.actorOf(CounterActor.class);
+        ActorRef<?> running = system.actorOf(CounterActor.class);
+        List<ActorRef<?>> members = new ArrayList<>();
+        members.add(stopped);
+        members.add(running);
+        ActorRef group = system.groupOf(members);
+        system.stop(stopped).get(2, TimeUnit.SECONDS);
+
+        group.send(new Increment(), group);
+
+        Result result = system.<Result>ask(running, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The running members receive the broadcast", 1, result.getResult());
+    }
+
+    @Test
+    public void shouldDeliverToTheOtherMembersWhenAMailBoxIsFull() throws Exception {
+        // A dispatcher that never executes its actors, so that their mailboxes are never drained
+        Dispatcher stalled = new Dispatcher() {
+            @Override
+            public void dispatch(Runnable task) {
+            }
+
+            @Override
+            public int getThroughput() {
+                return 1;
+            }
+
+            @Override
+            public long getThroughputDeadline() {
+                return 0;
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        ActorConfig config = ActorConfig.defaults().withDispatcher(stalled)
+                .withMailBox(MailBoxFactory.bounded(1, OverflowPolicy.FAIL));
+        ActorRef full = system.actorOf(CounterActor.class, config);
+        full.send(new Increment(), full);
+        ActorRef<?> running = system.actorOf(CounterActor.class);
+        List<ActorRef<?>> members = new ArrayList<>();
+        members.add(full);
+        members.add(running);
+        ActorRef group = system.groupOf(members);
+
+        group.send(new Increment(), group);
+
+        Result result = system.<Result>ask(running, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The other members receive the broadcast", 1, result.getResult());
+        Assert.assertEquals("The rejected message is counted as dropped", 1,
+                system.metrics().snapshot(full).getDropped());
+    }
+
+    @Test(expected = NoSuchActorException.class)
+    public void shouldNotCreateAGroupOfUnknownActors() {
+        ActorRef<?> unknown = ActorSystemFactory.buildActorSystem().actorOf(CounterActor.class);
+        system.groupOf(Collections.singletonList(unknown));
+    }
+}
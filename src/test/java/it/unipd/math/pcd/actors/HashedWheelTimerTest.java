@@ -0,0 +1,182 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the timing wheel that executes the scheduled tasks of an actor system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void init() {
+        // A small wheel, so that delays span several rounds
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void shouldNotExecuteATaskBeforeItsDelay() throws InterruptedException {
+        final CountDownLatch executed = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final long[] elapsed = new long[1];
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                elapsed[0] = System.nanoTime() - start;
+                executed.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue("The task is executed", executed.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue("The task is not executed before its delay",
+                elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void shouldNotExecuteACancelledTask() throws InterruptedException {
+        final AtomicInteger executions = new AtomicInteger();
+        Cancellable task = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executions.incrementAndGet();
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue("A pending task can be cancelled", task.cancel());
+        Assert.assertFalse("A task can be cancelled only once", task.cancel());
+        Thread.sleep(100);
+        Assert.assertEquals("A cancelled task is not executed", 0, executions.get());
+        Assert.assertTrue(task.isCancelled());
+    }
+
+    @Test
+    public void shouldReleaseACancelledTask() throws InterruptedException {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        WeakReference<Runnable> reference = new WeakReference<>(task);
+        timer.schedule(task, 1, TimeUnit.HOURS).cancel();
+        task = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull("A cancelled task is not retained by the timer", reference.get());
+    }
+
+    @Test
+    public void shouldExecuteAPeriodicTaskUntilCancelled() throws InterruptedException {
+        final CountDownLatch executions = new CountDownLatch(5);
+        Cancellable task = timer.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                executions.countDown();
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue("The task is executed periodically", executions.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue("A periodic task can be cancelled", task.cancel());
+    }
+
+    @Test
+    public void shouldScheduleAndCancelManyTasks() throws InterruptedException {
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+        Cancellable[] tasks = new Cancellable[200000];
+        for (int i = 0; i < tasks.length; i++)
+            tasks[i] = timer.schedule(task, 1 + i % 1000, TimeUnit.SECONDS);
+        for (Cancellable cancellable : tasks)
+            Assert.assertTrue(cancellable.cancel());
+
+        final CountDownLatch executed = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue("The timer is still responsive", executed.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldTerminateItsThreadOnceStopped() throws InterruptedException {
+        final AtomicReference<Thread> worker = new AtomicReference<>();
+        final CountDownLatch executed = new CountDownLatch(1);
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                worker.set(Thread.currentThread());
+                executed.countDown();
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+        Assert.assertTrue("The task is executed", executed.await(2, TimeUnit.SECONDS));
+
+        timer.stop();
+        worker.get().join(2000);
+        Assert.assertFalse("The thread of the timer terminates", worker.get().isAlive());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectATaskOnceStopped() {
+        timer.stop();
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests the queue of the pools whose threads wait according to an idle strategy.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class IdleStrategyQueueTest {
+
+    private static final IdleStrategy[] STRATEGIES = {
+            IdleStrategy.busySpin(),
+            IdleStrategy.spinThenYield(10),
+            IdleStrategy.spinThenPark(10, 1, TimeUnit.MILLISECONDS),
+            IdleStrategy.blocking()
+    };
+
+    @Test
+    public void shouldWakeUpAWaitingConsumer() throws InterruptedException {
+        for (IdleStrategy strategy : STRATEGIES) {
+            final IdleStrategyQueue queue = new IdleStrategyQueue(strategy, 1);
+            final AtomicReference<Runnable> taken = new AtomicReference<>();
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        taken.set(queue.take());
+                    } catch (InterruptedException e) {
+                        // Fails below
+                    }
+                }
+            });
+            consumer.start();
+            Thread.sleep(50);
+
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                }
+            };
+            queue.offer(task);
+            consumer.join(2000);
+            Assert.assertSame("The waiting consumer takes the task", task, taken.get());
+        }
+    }
+
+    @Test
+    public void shouldStopWaitingWhenInterrupted() throws InterruptedException {
+        for (IdleStrategy strategy : STRATEGIES) {
+            final IdleStrategyQueue queue = new IdleStrategyQueue(strategy, 1);
+            final AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        queue.take();
+                    } catch (InterruptedException e) {
+                        interrupted.set(true);
+                    }
+                }
+            });
+            consumer.start();
+            Thread.sleep(50);
+
+            consumer.interrupt();
+            consumer.join(2000);
+            Assert.assertTrue("An interrupted consumer stops waiting", interrupted.get());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutAPoll() throws InterruptedException {
+        IdleStrategyQueue queue = new IdleStrategyQueue(IdleStrategy.spinThenPark(10, 1, TimeUnit.MILLISECONDS), 1);
+        Assert.assertNull("An empty queue returns nothing after the timeout", queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldWakeUpEveryConsumerEvenWithoutASlot() throws InterruptedException {
+        // Two consumers more than the slots of the queue
+        final IdleStrategyQueue queue = new IdleStrategyQueue(IdleStrategy.blocking(), 2);
+        final CountDownLatch taken = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            Thread consumer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        queue.take();
+                        taken.countDown();
+                    } catch (InterruptedException e) {
+                        // Fails below
+                    }
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+        Thread.sleep(50);
+
+        for (int i = 0; i < 4; i++) {
+            queue.offer(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+        }
+        Assert.assertTrue("Every waiting consumer takes a task", taken.await(2, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,89 @@
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test cases about {@link MpscMailBox} type.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class MpscMailBoxTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES = 20000;
+
+    private MailBox<StoreMessage> mailBox;
+
+    @Before
+    public void init() {
+        mailBox = new MpscMailBox<>();
+    }
+
+    @Test
+    public void shouldBeEmptyWhenCreated() {
+        Assert.assertTrue("A new mailbox is empty", mailBox.isEmpty());
+        Assert.assertNull("Nothing can be removed from an empty mailbox", mailBox.remove());
+    }
+
+    @Test
+    public void shouldRemoveMessagesInInsertionOrder() {
+        mailBox.add(new StoreMessage("first"), null);
+        mailBox.add(new StoreMessage("second"), null);
+        Assert.assertEquals("first", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("second", mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("A drained mailbox is empty", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldNotLooseAnyMessageOfConcurrentProducers() throws InterruptedException {
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final String producer = String.valueOf(p);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < MESSAGES; i++)
+                        mailBox.add(new StoreMessage(producer + ":" + i), null);
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        int[] next = new int[PRODUCERS];
+        int received = 0;
+        while (received < PRODUCERS * MESSAGES) {
+            MailBox<StoreMessage>.MailBoxItem item = mailBox.remove();
+            if (item == null)
+                continue;
+            String[] payload = item.getMessage().getPayload().split(":");
+            int producer = Integer.parseInt(payload[0]);
+            Assert.assertEquals("Messages of a producer are received in order",
+                    next[producer]++, Integer.parseInt(payload[1]));
+            received++;
+        }
+
+        for (Thread thread : producers)
+            thread.join();
+        Assert.assertTrue("All the messages have been received", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldSpliceABatchInOrder() {
+        mailBox.add(new StoreMessage("a"), null);
+        mailBox.addAll(Arrays.asList(new StoreMessage("b"), new StoreMessage("c"), new StoreMessage("d")), null);
+        mailBox.add(new StoreMessage("e"), null);
+        for (String expected : new String[]{"a", "b", "c", "d", "e"})
+            Assert.assertEquals(expected, mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("A drained mailbox is empty", mailBox.isEmpty());
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.persistence.Journal;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
+import it.unipd.math.pcd.actors.utils.actors.counter.PersistentCounterActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.Decrement;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the recovery of the state of persistent actors from their journal.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class PersistentActorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldRecoverTheStateAfterARestart() throws Exception {
+        Journal journal = new Journal(folder.getRoot().toPath());
+        ActorSystem system = ActorSystemFactory.buildActorSystem();
+        ActorRef counter = system.actorOf(PersistentCounterActor.class,
+                ActorConfig.defaults().withPersistence(journal, "counter"));
+        for (int i = 0; i < 100; i++)
+            counter.send(new Increment(), counter);
+        counter.send(new Decrement(), counter);
+        // Handled once the events before it have been persisted
+        Assert.assertEquals("The events are applied", 99, this.<Result>get(system, counter).getResult());
+        system.stop().get(2, TimeUnit.SECONDS);
+        journal.close();
+
+        Journal reopened = new Journal(folder.getRoot().toPath());
+        try {
+            ActorSystem restarted = ActorSystemFactory.buildActorSystem();
+            ActorRef recovered = restarted.actorOf(PersistentCounterActor.class,
+                    ActorConfig.defaults().withPersistence(reopened, "counter"));
+            Assert.assertEquals("The events are replayed", 99, this.<Result>get(restarted, recovered).getResult());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void shouldReplayOnlyTheEventsOfTheActorAcrossSegments() throws Exception {
+        // Segments of 1 KB hold a few dozen events each
+        Journal journal = new Journal(folder.getRoot().toPath(), 1024, counterSerializers());
+        ActorSystem system = ActorSystemFactory.buildActorSystem();
+        ActorRef first = system.actorOf(PersistentCounterActor.class,
+                ActorConfig.defaults().withPersistence(journal, "first"));
+        ActorRef second = system.actorOf(PersistentCounterActor.class,
+                ActorConfig.defaults().withPersistence(journal, "second"));
+        for (int i = 0; i < 200; i++) {
+            first.send(new Increment(), first);
+            if (i % 2 == 0)
+                second.send(new Increment(), second);
+        }
+        Assert.assertEquals(200, this.<Result>get(system, first).getResult());
+        Assert.assertEquals(100, this.<Result>get(system, second).getResult());
+        journal.close();
+        File[] indexes = folder.getRoot().listFiles();
+        Assert.assertTrue("The journal has been split into segments", indexes != null && indexes.length > 4);
+
+        Journal reopened = new Journal(folder.getRoot().toPath(), 1024, counterSerializers());
+        try {
+            ActorSystem restarted = ActorSystemFactory.buildActorSystem();
+            ActorRef recoveredSecond = restarted.actorOf(PersistentCounterActor.class,
+                    ActorConfig.defaults().withPersistence(reopened, "second"));
+            Assert.assertEquals("Only the events of the actor are replayed", 100,
+                    this.<Result>get(restarted, recoveredSecond).getResult());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void shouldApplyTheEventsWhenTheMailBoxIsFull() throws Exception {
+        // Runs the turns of the actor only when the test asks to
+        final Queue<Runnable> turns = new ConcurrentLinkedQueue<>();
+        Dispatcher manual = new Dispatcher() {
+            @Override
+            public void dispatch(Runnable task) {
+                turns.add(task);
+            }
+
+            @Override
+            public int getThroughput() {
+                return 1;
+            }
+
+            @Override
+            public long getThroughputDeadline() {
+                return 0;
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        Journal journal = new Journal(folder.getRoot().toPath());
+        ActorSystem system = ActorSystemFactory.buildActorSystem();
+        try {
+            ActorRef counter = system.actorOf(PersistentCounterActor.class, ActorConfig.defaults()
+                    .withPersistence(journal, "counter")
+                    .withDispatcher(manual)
+                    .withMailBox(MailBoxFactory.bounded(1, OverflowPolicy.FAIL)));
+            counter.send(new Increment(), counter);
+            runTurns(turns);
+            // Fills the mailbox while the increment is being persisted
+            CompletableFuture<Result> response = system.ask(counter, new Get(), 5, TimeUnit.SECONDS);
+            // The journal makes the increment durable while the mailbox is still full
+            Thread.sleep(500);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!response.isDone() && System.nanoTime() < deadline) {
+                runTurns(turns);
+                Thread.sleep(10);
+            }
+
+            Assert.assertEquals("The increment is applied even if the mailbox was full", 1,
+                    response.get().getResult());
+        } finally {
+            system.shutdown();
+            journal.close();
+        }
+    }
+
+    @Test
+    public void shouldHandleTheMessagesPutAsideBeforeTerminating() throws Exception {
+        Journal journal = new Journal(folder.getRoot().toPath());
+        ActorSystem system = ActorSystemFactory.buildActorSystem();
+        ActorRef counter = system.actorOf(PersistentCounterActor.class,
+                ActorConfig.defaults().withPersistence(journal, "counter"));
+        // Put aside while the first one is being persisted
+        for (int i = 0; i < 100; i++)
+            counter.send(new Increment(), counter);
+        system.stop(counter).get(5, TimeUnit.SECONDS);
+        system.shutdown().get(2, TimeUnit.SECONDS);
+        journal.close();
+
+        Journal reopened = new Journal(folder.getRoot().toPath());
+        ActorSystem restarted = ActorSystemFactory.buildActorSystem();
+        try {
+            ActorRef recovered = restarted.actorOf(PersistentCounterActor.class,
+                    ActorConfig.defaults().withPersistence(reopened, "counter"));
+            Assert.assertEquals("Every increment has been persisted before the actor terminated", 100,
+                    this.<Result>get(restarted, recovered).getResult());
+        } finally {
+            restarted.shutdown().get(2, TimeUnit.SECONDS);
+            reopened.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateAPersistentActorWithoutAJournal() {
+        ActorSystemFactory.buildActorSystem().actorOf(PersistentCounterActor.class);
+    }
+
+    private <R extends Message> R get(ActorSystem system, ActorRef<?> counter) throws Exception {
+        return system.<R>ask(counter, new Get(), 5, TimeUnit.SECONDS).get();
+    }
+
+    private static void runTurns(Queue<Runnable> turns) {
+        Runnable turn;
+        while ((turn = turns.poll()) != null)
+            turn.run();
+    }
+
+    private static SerializerRegistry counterSerializers() {
+        // The events have no codec: they are written with Java serialization
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.allowJavaSerialization(Increment.class);
+        serializers.allowJavaSerialization(Decrement.class);
+        return serializers;
+    }
+}
@@ -0,0 +1,77 @@
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test cases about {@link PriorityMailBox} type.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class PriorityMailBoxTest {
+
+    private MailBox<StoreMessage> mailBox;
+
+    @Before
+    public void init() {
+        mailBox = new PriorityMailBox<>(3);
+    }
+
+    @Test
+    public void shouldRemoveHigherPrioritiesFirst() {
+        mailBox.add(new StoreMessage("bulk"), null);
+        mailBox.add(new StoreMessage("normal"), null, 1);
+        mailBox.add(new StoreMessage("control"), null, 0);
+        Assert.assertEquals("control", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("normal", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("bulk", mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("A drained mailbox is empty", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepTheOrderWithinAPriority() {
+        mailBox.add(new StoreMessage("first"), null, 0);
+        mailBox.add(new StoreMessage("second"), null, 0);
+        Assert.assertEquals("first", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("second", mailBox.remove().getMessage().getPayload());
+    }
+
+    @Test
+    public void shouldUseThePriorityOfAPriorityMessage() {
+        mailBox.add(new StoreMessage("bulk"), null);
+        mailBox.add(new UrgentStoreMessage("urgent"), null);
+        Assert.assertEquals("urgent", mailBox.remove().getMessage().getPayload());
+    }
+
+    @Test
+    public void shouldClampPrioritiesOutOfRange() {
+        mailBox.add(new StoreMessage("low"), null, 42);
+        mailBox.add(new StoreMessage("high"), null, -1);
+        Assert.assertEquals("high", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("low", mailBox.remove().getMessage().getPayload());
+    }
+
+    /**
+     * A store message with the highest priority.
+     */
+    private static class UrgentStoreMessage extends StoreMessage implements PriorityMessage {
+
+        UrgentStoreMessage(String payload) {
+            super(payload);
+        }
+
+        @Override
+        public int getPriority() {
+            return 0;
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAnInvalidDefaultPriorityWhenConfigured() {
+        MailBoxFactory.priority(3, 3);
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.SerializationException;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
+import it.unipd.math.pcd.actors.utils.actors.StoreActor;
+import it.unipd.math.pcd.actors.utils.actors.TrivialActor;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.actors.ping.pong.PingPongActor;
+import it.unipd.math.pcd.actors.utils.messages.MessageCodecs;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PongMessage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the messages exchanged by two actor systems listening on the loopback interface.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class RemoteActorRefTest {
+
+    private ActorSystem client;
+    private ActorSystem server;
+
+    @Before
+    public void init() {
+        client = ActorSystemFactory.buildActorSystem();
+        server = ActorSystemFactory.buildActorSystem();
+        // Pings and pongs use their codecs, counter messages fall back to Java serialization
+        MessageCodecs.registerAll(client.serializers());
+        MessageCodecs.registerAll(server.serializers());
+        allowCounterMessages(client.serializers());
+        allowCounterMessages(server.serializers());
+        client.listen("127.0.0.1", 0);
+        server.listen("127.0.0.1", 0);
+    }
+
+    @After
+    public void tearDown() {
+        client.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverTheMessagesToAnActorOfAnotherSystem() throws Exception {
+        ActorRef<?> counter = server.actorOf(CounterActor.class, ActorSystem.ActorMode.REMOTE);
+        ActorRef remote = client.actorFor(server.addressOf(counter));
+
+        for (int i = 0; i < 100; i++)
+            remote.send(new Increment(), remote);
+
+        // The messages of a connection are delivered in order
+        Result result = client.<Result>ask(remote, new Get(), 5, TimeUnit.SECONDS).get();
+        Assert.assertEquals("Every increment crosses the connection", 100, result.getResult());
+    }
+
+    @Test
+    public void shouldDeliverInOrderTheBatchesOfManySenders() throws Exception {
+        ActorRef<?> counter = server.actorOf(CounterActor.class);
+        ActorRef remote = client.actorFor(server.addressOf(counter));
+        ActorRef[] senders = new ActorRef[4];
+        for (int i = 0; i < senders.length; i++)
+            senders[i] = client.actorOf(TrivialActor.class);
+
+        // Interleaved senders, so that the batches hold runs of different senders
+        for (int i = 0; i < 10000; i++)
+            senders[i % senders.length].send(new Increment(), remote);
+
+        Result result = client.<Result>ask(remote, new Get(), 5, TimeUnit.SECONDS).get();
+        Assert.assertEquals("Every increment is delivered before the get", 10000, result.getResult());
+    }
+
+    @Test
+    public void shouldDeliverABatchToTheOtherReceiversWhenAMailBoxIsFull() throws Exception {
+        // The first increment fills the mailbox, which is never drained, and the others overflow
+        ActorRef<?> full = server.actorOf(CounterActor.class, ActorConfig.defaults()
+                .withDispatcher(stalled())
+                .withMailBox(MailBoxFactory.bounded(1, OverflowPolicy.FAIL)));
+        ActorRef<?> counter = server.actorOf(CounterActor.class);
+        ActorRef remoteFull = client.actorFor(server.addressOf(full));
+        ActorRef remoteCounter = client.actorFor(server.addressOf(counter));
+
+        for (int i = 0; i < 10; i++) {
+            remoteFull.send(new Increment(), remoteFull);
+            remoteCounter.send(new Increment(), remoteCounter);
+        }
+
+        Result result = client.<Result>ask(remoteCounter, new Get(), 5, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The other receivers of the batches get their messages once", 10, result.getResult());
+        Assert.assertEquals("The messages that do not fit are dropped", 9,
+                server.metrics().snapshot(full).getDropped());
+    }
+
+    @Test
+    public void shouldNotWaitForRoomInTheMailBoxOfAReceiver() throws Exception {
+        ActorRef<?> full = server.actorOf(CounterActor.class, ActorConfig.defaults()
+                .withDispatcher(stalled())
+                .withMailBox(MailBoxFactory.bounded(1, OverflowPolicy.BLOCK)));
+        ActorRef<?> counter = server.actorOf(CounterActor.class);
+        ActorRef remoteFull = client.actorFor(server.addressOf(full));
+        ActorRef remoteCounter = client.actorFor(server.addressOf(counter));
+
+        // Waiting for room would stall the thread that serves every connection
+        for (int i = 0; i < 10; i++)
+            remoteFull.send(new Increment(), remoteFull);
+        remoteCounter.send(new Increment(), remoteCounter);
+
+        Result result = client.<Result>ask(remoteCounter, new Get(), 5, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The messages to the other receivers are delivered", 1, result.getResult());
+        Assert.assertEquals("The messages that do not fit are dropped", 9,
+                server.metrics().snapshot(full).getDropped());
+    }
+
+    @Test
+    public void shouldDeliverTheMessagesWithoutBatching() throws Exception {
+        ActorSystem unbatchedClient = ActorSystemFactory.buildActorSystem();
+        ActorSystem unbatchedServer = ActorSystemFactory.buildActorSystem();
+        unbatchedClient.listen("127.0.0.1", 0, RemoteConfig.defaults().withoutBatching());
+        unbatchedServer.listen("127.0.0.1", 0, RemoteConfig.defaults().withoutBatching());
+        allowCounterMessages(unbatchedClient.serializers());
+        allowCounterMessages(unbatchedServer.serializers());
+        try {
+            ActorRef<?> counter = unbatchedServer.actorOf(CounterActor.class);
+            ActorRef remote = unbatchedClient.actorFor(unbatchedServer.addressOf(counter));
+
+            for (int i = 0; i < 1000; i++)
+                remote.send(new Increment(), remote);
+
+            Result result = unbatchedClient.<Result>ask(remote, new Get(), 5, TimeUnit.SECONDS).get();
+            Assert.assertEquals("Every increment crosses the connection", 1000, result.getResult());
+        } finally {
+            unbatchedClient.shutdown();
+            unbatchedServer.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReplyToTheSenderInTheOtherSystem() throws Exception {
+        ActorRef pinger = client.actorOf(PingPongActor.class);
+        ActorRef<?> ponger = server.actorOf(PingPongActor.class);
+        ActorRef remote = client.actorFor(server.addressOf(ponger));
+
+        pinger.send(new PingMessage(), remote);
+
+        PingPongActor actor = (PingPongActor) ((AbsActorSystem) client).getActorByRef(pinger);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!(actor.getLastMessage() instanceof PongMessage) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Assert.assertTrue("The pong reaches the pinger", actor.getLastMessage() instanceof PongMessage);
+    }
+
+    @Test
+    public void shouldDeliverLocallyTheMessagesToAnActorOfTheSameSystem() throws Exception {
+        ActorRef<?> counter = server.actorOf(CounterActor.class);
+        ActorRef local = server.actorFor(server.addressOf(counter));
+
+        local.send(new Increment(), local);
+
+        Result result = server.<Result>ask(local, new Get(), 2, TimeUnit.SECONDS).get();
+        Assert.assertEquals("The reference resolves to the actor", 1, result.getResult());
+        Assert.assertEquals("The reference has the address of the actor",
+                server.addressOf(counter), server.addressOf(local));
+    }
+
+    @Test
+    public void shouldDeliverTheLargestMessageWithinABatch() throws Exception {
+        // A store message from a local sender takes 23 bytes besides its payload, and a batch
+        // adds 5 bytes to the message: the whole frame takes 16 MB
+        int largest = 16 * 1024 * 1024 - 28;
+        ActorRef<?> store = server.actorOf(StoreActor.class, ActorSystem.ActorMode.REMOTE);
+        ActorRef remote = client.actorFor(server.addressOf(store));
+        ActorRef sender = client.actorOf(TrivialActor.class);
+
+        try {
+            sender.send(new StoreMessage(repeat('x', largest + 1)), remote);
+            Assert.fail("A message that does not fit in a batch is rejected");
+        } catch (SerializationException e) {
+            // Expected
+        }
+        sender.send(new StoreMessage(repeat('x', largest)), remote);
+
+        StoreActor actor = (StoreActor) ((AbsActorSystem) server).getActorByRef(store);
+        for (int i = 0; i < 500 && actor.getData() == null; i++)
+            Thread.sleep(10);
+        Assert.assertNotNull("The message crosses the connection", actor.getData());
+        Assert.assertEquals(largest, actor.getData().length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateRemoteActorsUnlessListening() {
+        ActorSystemFactory.buildActorSystem().actorOf(TrivialActor.class, ActorSystem.ActorMode.REMOTE);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static void allowCounterMessages(SerializerRegistry serializers) {
+        serializers.allowJavaSerialization(Increment.class);
+        serializers.allowJavaSerialization(Get.class);
+        serializers.allowJavaSerialization(Result.class);
+    }
+
+    /**
+     * A dispatcher that never executes its actors, so that their mailboxes are never drained.
+     */
+    private static Dispatcher stalled() {
+        return new Dispatcher() {
+            @Override
+            public void dispatch(Runnable task) {
+            }
+
+            @Override
+            public int getThroughput() {
+                return 1;
+            }
+
+            @Override
+            public long getThroughputDeadline() {
+                return 0;
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+}
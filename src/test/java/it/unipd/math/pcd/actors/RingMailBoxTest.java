@@ -0,0 +1,202 @@
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.exceptions.MailBoxOverflowException;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test cases about {@link RingMailBox} type.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class RingMailBoxTest {
+
+    @Test
+    public void shouldRoundTheCapacityToAPowerOfTwo() {
+        Assert.assertEquals(8, new RingMailBox<StoreMessage>(5).getCapacity());
+        Assert.assertEquals("A ring has at least two slots", 2, new RingMailBox<StoreMessage>(1).getCapacity());
+    }
+
+    @Test
+    public void shouldRemoveMessagesInInsertionOrderAcrossLaps() {
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(4);
+        for (int i = 0; i < 10; i++) {
+            mailBox.add(new StoreMessage("first" + i), null);
+            mailBox.add(new StoreMessage("second" + i), null);
+            Assert.assertEquals("first" + i, mailBox.remove().getMessage().getPayload());
+            Assert.assertEquals("second" + i, mailBox.remove().getMessage().getPayload());
+            Assert.assertTrue("A drained mailbox is empty", mailBox.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldApplyTheOverflowPolicyWhenFull() {
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(2, OverflowPolicy.DROP_NEWEST, 0, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < 3; i++)
+            mailBox.add(new StoreMessage(String.valueOf(i)), null);
+        Assert.assertEquals("One message was dropped", 1, mailBox.getDroppedCount());
+        Assert.assertEquals("0", mailBox.remove().getMessage().getPayload());
+    }
+
+    @Test
+    public void shouldDropAnOfferedMessageInsteadOfFailing() {
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(2, OverflowPolicy.FAIL, 0, TimeUnit.NANOSECONDS);
+        mailBox.offerAll(Arrays.asList(new StoreMessage("a"), new StoreMessage("b"), new StoreMessage("c")), null);
+        mailBox.offer(new StoreMessage("d"), null);
+        Assert.assertEquals("The offered messages that do not fit are dropped", 2, mailBox.getDroppedCount());
+        Assert.assertEquals("a", mailBox.remove().getMessage().getPayload());
+        Assert.assertEquals("b", mailBox.remove().getMessage().getPayload());
+    }
+
+    @Test(expected = MailBoxOverflowException.class)
+    public void shouldFailWhenFull() {
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(2, OverflowPolicy.FAIL, 0, TimeUnit.NANOSECONDS);
+        mailBox.add(new StoreMessage("a"), null);
+        mailBox.add(new StoreMessage("b"), null);
+        mailBox.add(new StoreMessage("c"), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotSupportDroppingTheOldestMessage() {
+        new RingMailBox<StoreMessage>(2, OverflowPolicy.DROP_OLDEST, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    public void shouldValidateTheArgumentsOfAFactoryWithoutCreatingARing() {
+        // The slots of the largest ring would take gigabytes
+        Assert.assertNotNull(MailBoxFactory.ring(1 << 30));
+        try {
+            MailBoxFactory.ring(2, OverflowPolicy.DROP_OLDEST, 0, TimeUnit.NANOSECONDS);
+            Assert.fail("The factory rejects a policy that the ring does not support");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void shouldNotLooseAnyMessageOfConcurrentProducers() throws InterruptedException {
+        final MailBox<StoreMessage> mailBox = new RingMailBox<>(64);
+        final int producers = 4;
+        final int messages = 20000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final String producer = String.valueOf(p);
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < messages; i++)
+                        mailBox.add(new StoreMessage(producer + ":" + i), null);
+                }
+            });
+            threads[p].start();
+        }
+
+        int[] next = new int[producers];
+        for (int received = 0; received < producers * messages; ) {
+            MailBox<StoreMessage>.MailBoxItem item = mailBox.remove();
+            if (item == null)
+                continue;
+            String[] payload = item.getMessage().getPayload().split(":");
+            Assert.assertEquals("Messages of a producer are received in order",
+                    next[Integer.parseInt(payload[0])]++, Integer.parseInt(payload[1]));
+            received++;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertTrue("All the messages have been received", mailBox.isEmpty());
+    }
+
+    /**
+     * Measures the allocation rate of the steady state: sending and receiving the same message
+     * must not allocate anything.
+     */
+    @Test
+    public void shouldNotAllocateInTheSteadyState() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(1024);
+        StoreMessage message = new StoreMessage("Hello World");
+        // Warm up, so that the measure does not include the compilation
+        sendAndReceive(mailBox, message, 200000);
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        int messages = 1000000;
+        sendAndReceive(mailBox, message, messages);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        Assert.assertTrue("Allocated " + allocated + " bytes for " + messages + " messages",
+                allocated < messages / 100);
+    }
+
+    private static void sendAndReceive(MailBox<StoreMessage> mailBox, StoreMessage message, int messages) {
+        for (int i = 0; i < messages; i += 64) {
+            for (int j = 0; j < 64; j++)
+                mailBox.add(message, null);
+            for (int j = 0; j < 64; j++)
+                mailBox.remove();
+        }
+    }
+
+    @Test
+    public void shouldClaimABatchLargerThanTheRing() {
+        MailBox<StoreMessage> mailBox = new RingMailBox<>(4, OverflowPolicy.DROP_NEWEST, 0, TimeUnit.NANOSECONDS);
+        List<StoreMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            batch.add(new StoreMessage(String.valueOf(i)));
+        mailBox.addAll(batch, null);
+        Assert.assertEquals("The messages beyond the capacity were dropped", 2, mailBox.getDroppedCount());
+        for (int i = 0; i < 4; i++)
+            Assert.assertEquals(String.valueOf(i), mailBox.remove().getMessage().getPayload());
+        Assert.assertTrue("A drained mailbox is empty", mailBox.isEmpty());
+    }
+
+    @Test
+    public void shouldNotLooseAnyBatchOfConcurrentProducers() throws InterruptedException {
+        final MailBox<StoreMessage> mailBox = new RingMailBox<>(64);
+        final int producers = 4;
+        final int batches = 2000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final String producer = String.valueOf(p);
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < batches; i++) {
+                        // A batch that does not fit in the room left is added one message at a time
+                        mailBox.addAll(Arrays.asList(new StoreMessage(producer + ":" + (2 * i)),
+                                new StoreMessage(producer + ":" + (2 * i + 1))), null);
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        int[] next = new int[producers];
+        for (int received = 0; received < producers * batches * 2; ) {
+            MailBox<StoreMessage>.MailBoxItem item = mailBox.remove();
+            if (item == null)
+                continue;
+            String[] payload = item.getMessage().getPayload().split(":");
+            Assert.assertEquals("Messages of a producer are received in order",
+                    next[Integer.parseInt(payload[0])]++, Integer.parseInt(payload[1]));
+            received++;
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Assert.assertTrue("All the messages have been received", mailBox.isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors;
+
+import it.unipd.math.pcd.actors.utils.ActorSystemFactory;
+import it.unipd.math.pcd.actors.utils.actors.counter.CounterActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.CounterMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the routers of an actors' system.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class RouterActorRefTest {
+
+    private ActorSystem system;
+
+    @Before
+    public void init() {
+        system = ActorSystemFactory.buildActorSystem();
+    }
+
+    /**
+     * Releases the threads of the {@code system} after each test.
+     */
+    @After
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RouterActorRef<CounterMessage> routerOf(RoutingStrategy strategy) {
+        return (RouterActorRef<CounterMessage>) system.routerOf(CounterActor.class, 4, strategy);
+    }
+
+    @Test
+    public void shouldPickTheRouteesInTurn() {
+        RouterActorRef<CounterMessage> router = routerOf(RoutingStrategy.ROUND_ROBIN);
+        Set<AbsActor<?>> picked = new HashSet<>();
+        for (int i = 0; i < 4; i++)
+            picked.add(router.select(new Increment()));
+        Assert.assertEquals("Every routee is picked once per turn", 4, picked.size());
+        Assert.assertSame("The turns start again from the first routee",
+                router.select(new Increment()), router.getRoutees()[0]);
+    }
+
+    @Test
+    public void shouldRouteTheSameKeyToTheSameRoutee() {
+        RouterActorRef<CounterMessage> router = routerOf(RoutingStrategy.CONSISTENT_HASH);
+        Set<AbsActor<?>> picked = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            AbsActor<?> routee = router.select(new Keyed(i));
+            Assert.assertSame("Equal keys are routed to the same routee", routee, router.select(new Keyed(i)));
+            picked.add(routee);
+        }
+        Assert.assertTrue("Different keys are spread over the pool", picked.size() > 1);
+    }
+
+    @Test
+    public void shouldDeliverEveryMessageToARoutee() throws Exception {
+        final AtomicInteger received = new AtomicInteger();
+        system.addListener(new ActorListener() {
+            @Override
+            public void onReceiveEnd(ActorRef<?> actor, Message message) {
+                received.incrementAndGet();
+            }
+        });
+        for (RoutingStrategy strategy : RoutingStrategy.values()) {
+            received.set(0);
+            ActorRef router = system.routerOf(CounterActor.class, 4, strategy);
+            for (int i = 0; i < 100; i++)
+                router.send(new Increment(), router);
+            system.stop(router).get(2, TimeUnit.SECONDS);
+            Assert.assertEquals("Every message is received with " + strategy, 100, received.get());
+        }
+    }
+
+    private static class Keyed extends Increment implements ConsistentHashable {
+
+        private final int key;
+
+        Keyed(int key) {
+            this.key = key;
+        }
+
+        @Override
+        public Object getConsistentHashKey() {
+            return key;
+        }
+    }
+}
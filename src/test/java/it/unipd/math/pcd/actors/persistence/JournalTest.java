@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.persistence;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.messages.MessageCodecs;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tests the journal of the events of persistent actors.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldCommitTheAppendsOfManyThreads() throws Exception {
+        final Journal journal = new Journal(folder.getRoot().toPath(), 4096, registry());
+        final List<CompletableFuture<Void>> commits = new ArrayList<>();
+        Thread[] appenders = new Thread[4];
+        for (int t = 0; t < appenders.length; t++) {
+            final String persistenceId = "actor-" + t;
+            appenders[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 1; i <= 250; i++) {
+                        CompletableFuture<Void> commit = journal.append(persistenceId, i, new StoreMessage("event " + i));
+                        synchronized (commits) {
+                            commits.add(commit);
+                        }
+                    }
+                }
+            });
+            appenders[t].start();
+        }
+        for (Thread appender : appenders)
+            appender.join();
+        CompletableFuture.allOf(commits.toArray(new CompletableFuture[commits.size()])).get(5, TimeUnit.SECONDS);
+
+        final List<String> replayed = new ArrayList<>();
+        long last = journal.replay("actor-2", new Consumer<Message>() {
+            @Override
+            public void accept(Message event) {
+                replayed.add(((StoreMessage) event).getPayload());
+            }
+        });
+        journal.close();
+
+        Assert.assertEquals("The last sequence number is returned", 250, last);
+        Assert.assertEquals("Every event of the actor is replayed", 250, replayed.size());
+        Assert.assertEquals("The events are replayed in order", "event 1", replayed.get(0));
+        Assert.assertEquals("The events are replayed in order", "event 250", replayed.get(249));
+    }
+
+    @Test
+    public void shouldDiscardTheEventsWrittenPartially() throws Exception {
+        Journal journal = new Journal(folder.getRoot().toPath(), 4096, registry());
+        journal.append("actor", 1, new StoreMessage("kept")).get(5, TimeUnit.SECONDS);
+        journal.append("actor", 2, new StoreMessage("torn")).get(5, TimeUnit.SECONDS);
+        journal.close();
+
+        // Corrupts the last byte of the second event, as a crash while writing it would
+        try (RandomAccessFile segment = new RandomAccessFile(folder.getRoot().toPath()
+                .resolve("0000000000.journal").toFile(), "rw")) {
+            int first = segment.readInt();
+            segment.seek(8 + first);
+            int second = segment.readInt();
+            long last = 8 + first + 8 + second - 1;
+            segment.seek(last);
+            byte value = segment.readByte();
+            segment.seek(last);
+            segment.writeByte(value ^ 0xFF);
+        }
+
+        Journal reopened = new Journal(folder.getRoot().toPath(), 4096, registry());
+        final List<Message> replayed = new ArrayList<>();
+        long lastSequenceNr = reopened.replay("actor", new Consumer<Message>() {
+            @Override
+            public void accept(Message event) {
+                replayed.add(event);
+            }
+        });
+        Assert.assertEquals("The corrupted event is discarded", 1, replayed.size());
+        Assert.assertEquals(1, lastSequenceNr);
+
+        // New events replace the corrupted one
+        reopened.append("actor", 2, new StoreMessage("appended")).get(5, TimeUnit.SECONDS);
+        replayed.clear();
+        reopened.replay("actor", new Consumer<Message>() {
+            @Override
+            public void accept(Message event) {
+                replayed.add(event);
+            }
+        });
+        reopened.close();
+        Assert.assertEquals("appended", ((StoreMessage) replayed.get(1)).getPayload());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAppendToAClosedJournal() {
+        Journal journal = new Journal(folder.getRoot().toPath(), 4096, registry());
+        journal.close();
+        journal.append("actor", 1, new StoreMessage("late"));
+    }
+
+    private static SerializerRegistry registry() {
+        SerializerRegistry registry = new SerializerRegistry();
+        MessageCodecs.registerAll(registry);
+        return registry;
+    }
+}
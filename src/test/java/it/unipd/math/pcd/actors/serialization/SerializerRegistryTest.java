@@ -0,0 +1,169 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.serialization;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.exceptions.SerializationException;
+import it.unipd.math.pcd.actors.utils.messages.MessageCodecs;
+import it.unipd.math.pcd.actors.utils.messages.StoreMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Tests the binary serialization of the messages.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class SerializerRegistryTest {
+
+    private SerializerRegistry registry;
+    private ByteBuffer buffer;
+
+    @Before
+    public void init() {
+        registry = new SerializerRegistry();
+        MessageCodecs.registerAll(registry);
+        buffer = ByteBuffer.allocateDirect(4096);
+    }
+
+    @Test
+    public void shouldReadBackTheMessagesOfARegisteredCodec() {
+        String payload = "ascii, àèì, € and 😀";
+        registry.serialize(new StoreMessage(payload), buffer);
+        registry.serialize(new PingMessage(), buffer);
+        buffer.flip();
+
+        Assert.assertEquals("The string is read back", payload, ((StoreMessage) registry.deserialize(buffer)).getPayload());
+        Assert.assertTrue("The class is read back", registry.deserialize(buffer) instanceof PingMessage);
+        Assert.assertFalse("Every byte is read", buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldWriteThePingInOneByte() {
+        registry.serialize(new PingMessage(), buffer);
+        Assert.assertEquals("Only the identifier of the codec is written", 1, buffer.position());
+    }
+
+    @Test
+    public void shouldFallBackToJavaSerialization() {
+        registry.allowJavaSerialization(Result.class);
+        registry.allowJavaSerialization(StoreMessage.class);
+        registry.serialize(new Result(42), buffer);
+        registry.serialize(new StoreMessage(null), buffer);
+        buffer.flip();
+
+        Assert.assertEquals("The message is read back", 42, ((Result) registry.deserialize(buffer)).getResult());
+        Assert.assertNull("The next message is read from its own position",
+                ((StoreMessage) registry.deserialize(buffer)).getPayload());
+    }
+
+    @Test(expected = SerializationException.class)
+    public void shouldNotReadAClassThatIsNotAllowed() {
+        registry.serialize(new Result(42), buffer);
+        buffer.flip();
+        registry.deserialize(buffer);
+    }
+
+    @Test
+    public void shouldReadOnlyTheDeclaredClassesOfTheFields() {
+        registry.allowJavaSerialization(Envelope.class);
+        registry.serialize(new Envelope("text"), buffer);
+        registry.serialize(new Envelope(new ArrayList<String>()), buffer);
+        buffer.flip();
+
+        Assert.assertEquals("A string is always read", "text", ((Envelope) registry.deserialize(buffer)).content);
+        try {
+            registry.deserialize(buffer);
+            Assert.fail("A field holding a class that is not allowed is rejected");
+        } catch (SerializationException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void shouldOverflowASmallBuffer() {
+        registry.serialize(new StoreMessage(new String(new char[100])), ByteBuffer.allocate(64));
+    }
+
+    @Test(expected = SerializationException.class)
+    public void shouldNotReadTheMessagesOfAnUnknownCodec() {
+        registry.serialize(new PingMessage(), buffer);
+        buffer.flip();
+        new SerializerRegistry().deserialize(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotRegisterAnIdentifierTwice() {
+        registry.register(Result.class, 1, new MessageCodec<Result>() {
+            @Override
+            public void encode(Result message, ByteBuffer buffer) {
+                buffer.putInt(message.getResult());
+            }
+
+            @Override
+            public Result decode(ByteBuffer buffer) {
+                return new Result(buffer.getInt());
+            }
+        });
+    }
+
+    @Test
+    public void shouldReuseTheReleasedBuffers() {
+        BufferPool pool = new BufferPool(1024, 1);
+        ByteBuffer first = pool.acquire();
+        first.putInt(1);
+        pool.release(first);
+
+        ByteBuffer second = pool.acquire();
+        Assert.assertSame("The buffer is reused", first, second);
+        Assert.assertEquals("The buffer is cleared", 0, second.position());
+        Assert.assertTrue("The buffer is direct", second.isDirect());
+    }
+
+    /**
+     * Message whose field is declared as an object, so its content may be of any class.
+     */
+    private static final class Envelope implements Message {
+        private final Object content;
+
+        Envelope(Object content) {
+            this.content = content;
+        }
+    }
+}
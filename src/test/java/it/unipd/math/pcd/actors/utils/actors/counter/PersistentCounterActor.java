@@ -0,0 +1,67 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.utils.actors.counter;
+
+import it.unipd.math.pcd.actors.Message;
+import it.unipd.math.pcd.actors.PersistentActor;
+import it.unipd.math.pcd.actors.utils.messages.counter.CounterMessage;
+import it.unipd.math.pcd.actors.utils.messages.counter.Decrement;
+import it.unipd.math.pcd.actors.utils.messages.counter.Get;
+import it.unipd.math.pcd.actors.utils.messages.counter.Increment;
+import it.unipd.math.pcd.actors.utils.messages.counter.Result;
+
+/**
+ * A counter that persists its increments and decrements as events.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public class PersistentCounterActor extends PersistentActor<CounterMessage> {
+
+    private int counter = 0;
+
+    @Override
+    protected void receiveCommand(CounterMessage message) {
+        if (message instanceof Increment || message instanceof Decrement) {
+            persist(message);
+        } else if (message instanceof Get) {
+            self.send(new Result(counter), sender);
+        }
+    }
+
+    @Override
+    protected void applyEvent(Message event) {
+        if (event instanceof Increment)
+            counter++;
+        else if (event instanceof Decrement)
+            counter--;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2015 Riccardo Cardin
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * <p/>
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+
+package it.unipd.math.pcd.actors.utils.messages;
+
+import it.unipd.math.pcd.actors.serialization.Codecs;
+import it.unipd.math.pcd.actors.serialization.MessageCodec;
+import it.unipd.math.pcd.actors.serialization.SerializerRegistry;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PingMessage;
+import it.unipd.math.pcd.actors.utils.messages.ping.pong.PongMessage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary codecs of the test messages.
+ *
+ * @author Nicola Dalla Costa
+ * @version 1.0
+ * @since 1.0
+ */
+public final class MessageCodecs {
+
+    public static final MessageCodec<StoreMessage> STORE = new MessageCodec<StoreMessage>() {
+        @Override
+        public void encode(StoreMessage message, ByteBuffer buffer) {
+            Codecs.putString(buffer, message.getPayload());
+        }
+
+        @Override
+        public StoreMessage decode(ByteBuffer buffer) {
+            return new StoreMessage(Codecs.getString(buffer));
+        }
+    };
+
+    // The text of pings and pongs is constant, so the identifier of the codec is enough
+    public static final MessageCodec<PingMessage> PING = new MessageCodec<PingMessage>() {
+        @Override
+        public void encode(PingMessage message, ByteBuffer buffer) {
+        }
+
+        @Override
+        public PingMessage decode(ByteBuffer buffer) {
+            return new PingMessage();
+        }
+    };
+
+    public static final MessageCodec<PongMessage> PONG = new MessageCodec<PongMessage>() {
+        @Override
+        public void encode(PongMessage message, ByteBuffer buffer) {
+        }
+
+        @Override
+        public PongMessage decode(ByteBuffer buffer) {
+            return new PongMessage();
+        }
+    };
+
+    private MessageCodecs() {
+    }
+
+    /**
+     * Registers the codecs of the test messages.
+     *
+     * @param registry The registry
+     */
+    public static void registerAll(SerializerRegistry registry) {
+        registry.register(StoreMessage.class, 1, STORE);
+        registry.register(PingMessage.class, 2, PING);
+        registry.register(PongMessage.class, 3, PONG);
+    }
+}